@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A loaded TestDataUTT instance with a partly optimised solution and a table of random slots,
+ * so the benchmarks measure realistic (not empty) timetables without paying for random numbers.
+ *
+ */
+@State(Scope.Thread)
+public class InstanceState {
+
+	// Set -Dtimetabling.data=<dir> (via -jvmArgs) when running from another directory
+	static final String DATA_LOCATION = System.getProperty("timetabling.data", "../TestDataUTT/");
+	static final int WARMUP_ITERATIONS = 200000;
+	static final int NO_OF_SLOTS = 1 << 16;
+	
+	@Param({"01", "02", "03", "04", "05", "06", "07", "08", "09", "10", "11", "12", "13"})
+	public String instance;
+	
+	Object problem;
+	Object solution;
+	Object search;
+	int[] rooms = new int[NO_OF_SLOTS];
+	int[] days = new int[NO_OF_SLOTS];
+	int[] periods = new int[NO_OF_SLOTS];
+	int[] courseIDs = new int[NO_OF_SLOTS];
+	int next;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Throwable {
+		this.problem = Timetabling.newProblem(dataLocation(this.instance));
+		this.solution = Timetabling.newSolution(this.problem);
+		SplittableRandom random = new SplittableRandom(42);
+		this.search = Timetabling.newSimpleSearch(this.solution, random.split());
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			Timetabling.iterate(this.search);
+		}
+		for (int i = 0; i < NO_OF_SLOTS; i++) {
+			this.rooms[i] = random.nextInt(Timetabling.noOfRooms(this.problem));
+			this.days[i] = random.nextInt(Timetabling.noOfDays(this.problem));
+			this.periods[i] = random.nextInt(Timetabling.periodsPerDay(this.problem));
+			this.courseIDs[i] = random.nextInt(Timetabling.noOfCourses(this.problem));
+		}
+	}
+	
+	/**
+	 * Gets the index of the next random slot.
+	 */
+	int nextSlot() {
+		this.next = (this.next + 1) & (NO_OF_SLOTS - 1);
+		return this.next;
+	}
+	
+	static String dataLocation(String instance) {
+		return DATA_LOCATION + "Test" + instance + "/";
+	}
+}
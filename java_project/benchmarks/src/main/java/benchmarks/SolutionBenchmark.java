@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the basic operations on Solution and CostCalculator.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionBenchmark {
+
+	/**
+	 * Insert a random lecture into a random slot and remove it again (if the insert was feasible).
+	 */
+	@Benchmark
+	public int insertRemove(InstanceState state) throws Throwable {
+		int i = state.nextSlot();
+		int cost = Timetabling.insertLecture(state.solution, state.rooms[i], state.days[i], state.periods[i], state.courseIDs[i]);
+		if (cost != Integer.MAX_VALUE) {
+			cost = Timetabling.removeLecture(state.solution, state.rooms[i], state.days[i], state.periods[i]);
+		}
+		return cost;
+	}
+	
+	/**
+	 * Feasibility check of inserting a random lecture into a random slot.
+	 */
+	@Benchmark
+	public boolean isInsertFeasible(InstanceState state) throws Throwable {
+		int i = state.nextSlot();
+		return Timetabling.isInsertFeasible(state.solution, state.rooms[i], state.days[i], state.periods[i], state.courseIDs[i]);
+	}
+	
+	/**
+	 * Feasibility check and (side effect free) cost delta of inserting a random lecture into a random slot.
+	 */
+	@Benchmark
+	public int deltaInsert(InstanceState state) throws Throwable {
+		int i = state.nextSlot();
+		return Timetabling.deltaInsertLecture(state.solution, state.rooms[i], state.days[i], state.periods[i], state.courseIDs[i]);
+	}
+}
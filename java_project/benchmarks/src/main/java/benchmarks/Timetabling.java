@@ -0,0 +1,142 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.SplittableRandom;
+
+/**
+ * Access to the solver classes from the benchmarks.
+ * JMH refuses benchmarks in the default package, and a named package cannot import classes from
+ * the default package, so the solver is reached through constant method handles (which the JIT
+ * inlines just like direct calls).
+ *
+ */
+final class Timetabling {
+
+	static final String[] FILES = {"basic.utt", "courses.utt", "lecturers.utt", "rooms.utt", "curricula.utt", "relation.utt", "unavailability.utt"};
+	
+	private static final MethodHandle NEW_PROBLEM;
+	private static final MethodHandle NEW_SOLUTION;
+	private static final MethodHandle NEW_SIMPLE_SEARCH;
+	private static final MethodHandle ITERATE;
+	private static final MethodHandle INSERT_LECTURE;
+	private static final MethodHandle REMOVE_LECTURE;
+	private static final MethodHandle DELTA_INSERT_LECTURE;
+	private static final MethodHandle IS_INSERT_FEASIBLE;
+	private static final MethodHandle GET_COST;
+	private static final MethodHandle NO_OF_ROOMS;
+	private static final MethodHandle NO_OF_DAYS;
+	private static final MethodHandle PERIODS_PER_DAY;
+	private static final MethodHandle NO_OF_COURSES;
+	
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Class<?> problem = Class.forName("Problem");
+			Class<?> solution = Class.forName("Solution");
+			Class<?> simpleSearch = Class.forName("SimpleSearch");
+			Class<?> search = Class.forName("Search");
+			NEW_PROBLEM = generic(lookup.findConstructor(problem, MethodType.methodType(void.class, String.class, String[].class)));
+			NEW_SOLUTION = generic(lookup.findConstructor(solution, MethodType.methodType(void.class, problem)));
+			NEW_SIMPLE_SEARCH = generic(lookup.findConstructor(simpleSearch,
+					MethodType.methodType(void.class, solution, boolean.class, SplittableRandom.class)));
+			ITERATE = generic(lookup.findVirtual(search, "iterate", MethodType.methodType(void.class)));
+			INSERT_LECTURE = generic(lookup.findVirtual(solution, "insertLecture",
+					MethodType.methodType(int.class, int.class, int.class, int.class, int.class)));
+			REMOVE_LECTURE = generic(lookup.findVirtual(solution, "removeLecture",
+					MethodType.methodType(int.class, int.class, int.class, int.class)));
+			DELTA_INSERT_LECTURE = generic(lookup.findVirtual(solution, "deltaInsertLecture",
+					MethodType.methodType(int.class, int.class, int.class, int.class, int.class)));
+			Method isInsertFeasible = solution.getDeclaredMethod("isInsertFeasible", int.class, int.class, int.class, int.class);
+			isInsertFeasible.setAccessible(true);
+			IS_INSERT_FEASIBLE = generic(lookup.unreflect(isInsertFeasible));
+			GET_COST = generic(lookup.findVirtual(solution, "getCost", MethodType.methodType(int.class)));
+			NO_OF_ROOMS = generic(lookup.findGetter(problem, "noOfRooms", int.class));
+			NO_OF_DAYS = generic(lookup.findGetter(problem, "noOfDays", int.class));
+			PERIODS_PER_DAY = generic(lookup.findGetter(problem, "periodsPerDay", int.class));
+			NO_OF_COURSES = generic(lookup.findGetter(problem, "noOfCourses", int.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private Timetabling() {
+	}
+	
+	static Object newProblem(String dataLocation) throws Throwable {
+		return (Object) NEW_PROBLEM.invokeExact(dataLocation, FILES);
+	}
+	
+	static Object newSolution(Object problem) throws Throwable {
+		return (Object) NEW_SOLUTION.invokeExact(problem);
+	}
+	
+	static Object newSimpleSearch(Object solution, SplittableRandom random) throws Throwable {
+		return (Object) NEW_SIMPLE_SEARCH.invokeExact(solution, false, random);
+	}
+	
+	static void iterate(Object search) throws Throwable {
+		ITERATE.invokeExact(search);
+	}
+	
+	static int insertLecture(Object solution, int room, int day, int period, int courseID) throws Throwable {
+		return (int) INSERT_LECTURE.invokeExact(solution, room, day, period, courseID);
+	}
+	
+	static int removeLecture(Object solution, int room, int day, int period) throws Throwable {
+		return (int) REMOVE_LECTURE.invokeExact(solution, room, day, period);
+	}
+	
+	static int deltaInsertLecture(Object solution, int room, int day, int period, int courseID) throws Throwable {
+		return (int) DELTA_INSERT_LECTURE.invokeExact(solution, room, day, period, courseID);
+	}
+	
+	static boolean isInsertFeasible(Object solution, int room, int day, int period, int courseID) throws Throwable {
+		return (boolean) IS_INSERT_FEASIBLE.invokeExact(solution, room, day, period, courseID);
+	}
+	
+	static int getCost(Object solution) throws Throwable {
+		return (int) GET_COST.invokeExact(solution);
+	}
+	
+	static int noOfRooms(Object problem) throws Throwable {
+		return (int) NO_OF_ROOMS.invokeExact(problem);
+	}
+	
+	static int noOfDays(Object problem) throws Throwable {
+		return (int) NO_OF_DAYS.invokeExact(problem);
+	}
+	
+	static int periodsPerDay(Object problem) throws Throwable {
+		return (int) PERIODS_PER_DAY.invokeExact(problem);
+	}
+	
+	static int noOfCourses(Object problem) throws Throwable {
+		return (int) NO_OF_COURSES.invokeExact(problem);
+	}
+	
+	/**
+	 * Erases the solver classes from the type of a method handle, so it can be invoked exactly with Object.
+	 */
+	private static MethodHandle generic(MethodHandle handle) {
+		MethodType type = handle.type();
+		for (int i = 0; i < type.parameterCount(); i++) {
+			if (isSolverClass(type.parameterType(i))) {
+				type = type.changeParameterType(i, Object.class);
+			}
+		}
+		if (isSolverClass(type.returnType())) {
+			type = type.changeReturnType(Object.class);
+		}
+		return handle.asType(type);
+	}
+	
+	/**
+	 * Is the class one of the solver classes (i.e. in the default package)?
+	 */
+	private static boolean isSolverClass(Class<?> type) {
+		return !type.isPrimitive() && !type.isArray() && type.getName().indexOf('.') < 0;
+	}
+}
@@ -1,8 +1,19 @@
 
+/**
+ * An action that changes a solution and that can be reverted again.
+ * Costs are returned as primitives; Solution.INFEASIBLE signals that nothing was (or would be) changed.
+ * Actions are reused: randomize() draws a new action, and evaluate() gives the change in cost
+ * before deciding whether to execute().
+ *
+ */
 public interface Action {
 
-	public Integer execute ();
+	public void randomize ();
+
+	public int evaluate ();
+	
+	public int execute ();
 	
-	public Integer revert ();
+	public int revert ();
 
 }
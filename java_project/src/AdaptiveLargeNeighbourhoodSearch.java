@@ -0,0 +1,444 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Adaptive large neighbourhood search: every iteration destroys a block of related lectures and
+ * greedily repairs the timetable, so whole curriculum-days or room-days can be rearranged at once.
+ * The destroy and repair operators are drawn by roulette wheel with weights that adapt to how often
+ * each operator leads to new best, improving or accepted solutions. Worsening cycles are accepted as in
+ * simulated annealing, with the temperature lowered over the time until the deadline (or the iteration budget).
+ * All buffers are allocated up front, and a rejected cycle is undone from its own log, not from the snapshot.
+ *
+ */
+public class AdaptiveLargeNeighbourhoodSearch extends Search {
+
+	// Destroy operators
+	final static int CURRICULUM_DAY = 0;		// all lectures of a curriculum on a day
+	final static int ROOM_DAY = 1;				// all lectures in a room on a day
+	final static int COURSE_CLUSTER = 2;		// lectures of a course and some of its neighbours in the conflict graph
+	final static String[] DESTROY_NAMES = {"CurriculumDay", "RoomDay", "CourseCluster"};
+	// Repair operators
+	final static int GREEDY = 0;				// the lectures in random order, each to its cheapest slot
+	final static int MOST_CONSTRAINED = 1;		// the lecture with the fewest feasible timeslots first
+	final static String[] REPAIR_NAMES = {"Greedy", "MostConstrained"};
+	// Scores of an operator per outcome, and the adaptation of the weights (as in Ropke & Pisinger)
+	final static double SCORE_NEW_BEST = 33;
+	final static double SCORE_IMPROVED = 9;
+	final static double SCORE_ACCEPTED = 13;
+	final static double REACTION = 0.1;
+	final static int SEGMENT_LENGTH = 100;		// cycles between weight updates
+	final static int CLUSTER_SIZE = 4;			// courses in a course cluster
+	// Iterations between updates of the temperature (reading the clock is not free)
+	final static int ITERATIONS_PER_TEMPERATURE = 100;
+
+	private Solution solution;
+	private Problem problem;
+	private int cost;
+	private int bestCost;						// cost of the snapshot kept in the solution
+	private long countStep;
+	private long startTime;
+	private long deadline;
+	private double startTemperature = 2.0;
+	private double endTemperature = 0.1;
+	private double expIndexScale;
+
+	// Adaptive weights
+	private double[] destroyWeights = new double[DESTROY_NAMES.length];
+	private double[] destroyScores = new double[DESTROY_NAMES.length];
+	private int[] destroyUses = new int[DESTROY_NAMES.length];
+	private double[] repairWeights = new double[REPAIR_NAMES.length];
+	private double[] repairScores = new double[REPAIR_NAMES.length];
+	private int[] repairUses = new int[REPAIR_NAMES.length];
+
+	// Log of the current cycle (bounded by maxLectures)
+	private int maxLectures;
+	private int[] removedSlots;					// i	-> slot the i'th removed lecture was taken from
+	private int[] removedCourses;				// i	-> course ID of the i'th removed lecture
+	private int noOfRemoved;
+	private int[] pool;							// i	-> course ID of a lecture to (re)insert
+	private int noOfPool;
+	private int[] insertedSlots;				// i	-> slot the i'th lecture was inserted in
+	private int noOfInserted;
+	private boolean[] isInCluster;				// courseID	-> part of the current course cluster?
+	private int[] cluster;
+	private int[] timeslotOrder;				// the timeslots, shuffled every repair
+
+	/**
+	 * Constructor.
+	 * @param initialSolution - The solution to start from.
+	 * @param outputInfo - Whether to print improvements.
+	 * @param random - The random generator of the search.
+	 * @param deadline - The System.nanoTime() where the search will be stopped.
+	 */
+	public AdaptiveLargeNeighbourhoodSearch(Solution initialSolution, boolean outputInfo, SplittableRandom random, long deadline) {
+		super(outputInfo, random);
+		this.solution = initialSolution;
+		this.problem = initialSolution.problem;
+		this.cost = initialSolution.getCost();
+		this.bestCost = this.cost;
+		initialSolution.saveSnapshot();
+		this.startTime = System.nanoTime();
+		this.deadline = deadline;
+		Arrays.fill(this.destroyWeights, 1);
+		Arrays.fill(this.repairWeights, 1);
+		// A curriculum or a room has at most one lecture per period, and clusters are cut off at the same size
+		this.maxLectures = 2 * this.problem.periodsPerDay + 1;
+		this.removedSlots = new int[this.maxLectures];
+		this.removedCourses = new int[this.maxLectures];
+		this.pool = new int[this.maxLectures];
+		this.insertedSlots = new int[this.maxLectures];
+		this.isInCluster = new boolean[this.problem.noOfCourses];
+		this.cluster = new int[CLUSTER_SIZE];
+		this.timeslotOrder = new int[this.problem.noOfTimeslots];
+		for (int timeslot = 0; timeslot < this.timeslotOrder.length; timeslot++) {
+			this.timeslotOrder[timeslot] = timeslot;
+		}
+		String[] moveTypes = new String[DESTROY_NAMES.length * REPAIR_NAMES.length];
+		for (int destroy = 0; destroy < DESTROY_NAMES.length; destroy++) {
+			for (int repair = 0; repair < REPAIR_NAMES.length; repair++) {
+				moveTypes[destroy * REPAIR_NAMES.length + repair] = DESTROY_NAMES[destroy] + "/" + REPAIR_NAMES[repair];
+			}
+		}
+		setMoveTypes(initialSolution, moveTypes);
+		updateTemperature();
+		output("Initial cost: " + this.cost);
+	}
+
+	/**
+	 * Sets the temperatures of the cooling schedule.
+	 * @param startTemperature - The temperature at the start of the search.
+	 * @param endTemperature - The temperature at the deadline.
+	 */
+	public void setTemperatures(double startTemperature, double endTemperature) {
+		this.startTemperature = startTemperature;
+		this.endTemperature = endTemperature;
+		updateTemperature();
+	}
+
+	public void iterate() {
+		if (++this.countStep % ITERATIONS_PER_TEMPERATURE == 0) {
+			updateTemperature();
+		}
+		if (this.countStep % SEGMENT_LENGTH == 0) {
+			updateWeights(this.destroyWeights, this.destroyScores, this.destroyUses);
+			updateWeights(this.repairWeights, this.repairScores, this.repairUses);
+		}
+		int destroy = roulette(this.destroyWeights);
+		int repair = roulette(this.repairWeights);
+		setMoveType(destroy * REPAIR_NAMES.length + repair);
+
+		// A lecture that is not scheduled yet joins the repair, so the search also fills an incomplete timetable
+		this.noOfRemoved = 0;
+		this.noOfPool = 0;
+		this.noOfInserted = 0;
+		int unscheduledCourse = this.solution.randomUnscheduledCourse(this.random);
+		if (unscheduledCourse != Solution.EMPTY) {
+			this.pool[this.noOfPool++] = unscheduledCourse;
+		}
+		destroy(destroy);
+		if (this.noOfPool == 0) {
+			countIteration(Solution.INFEASIBLE, false);
+			return;
+		}
+		repair(repair);
+		int newCost = this.solution.getCost();
+		int delta = newCost - this.cost;
+		boolean isAccepted = delta <= 0 || SimulatedAnnealingSearch.isAccepted(delta, this.expIndexScale, this.random);
+		countIteration(delta, isAccepted);
+
+		double score = 0;
+		if (!isAccepted) {
+			undo();
+		} else {
+			if (newCost < this.bestCost) {
+				this.bestCost = newCost;
+				this.solution.saveSnapshot();
+				recordBest(this.solution);
+				if (shouldOutputInfo()) {
+					output("Step " + this.countStep + ": Improving to " + newCost + " (" + DESTROY_NAMES[destroy] + "/" + REPAIR_NAMES[repair] + ")");
+				}
+				score = SCORE_NEW_BEST;
+			} else if (newCost < this.cost) {
+				score = SCORE_IMPROVED;
+			} else if (newCost != this.cost) {
+				score = SCORE_ACCEPTED;
+			}
+			this.cost = newCost;
+		}
+		this.destroyScores[destroy] += score;
+		this.destroyUses[destroy]++;
+		this.repairScores[repair] += score;
+		this.repairUses[repair]++;
+	}
+
+	public Solution getBestSolution() {
+		if (this.cost != this.bestCost) {
+			this.solution.restoreSnapshot();
+			this.cost = this.solution.getCost();
+		}
+		return this.solution;
+	}
+
+	public int getBestCost() {
+		return this.bestCost;
+	}
+
+	// Destroy
+
+	/**
+	 * Removes a block of related lectures around a random lecture and adds them to the pool.
+	 * @param operator - The destroy operator.
+	 */
+	private void destroy(int operator) {
+		int seedSlot = this.solution.randomOccupiedSlot(this.random);
+		if (seedSlot == Solution.EMPTY) {
+			return;
+		}
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int periodsPerDay = this.problem.periodsPerDay;
+		int seedRoom = seedSlot / noOfTimeslots;
+		int day = (seedSlot % noOfTimeslots) / periodsPerDay;
+		int seedCourse = this.solution.getCourseID(seedRoom, seedSlot % noOfTimeslots);
+		switch (operator) {
+		case CURRICULUM_DAY:
+			int[] curricula = this.problem.courseCurricula[seedCourse];
+			if (curricula.length == 0) {
+				remove(seedSlot);
+				break;
+			}
+			int curriculum = curricula[this.random.nextInt(curricula.length)];
+			for (int period = 0; period < periodsPerDay; period++) {
+				if (!this.solution.isCurriculaTaught(curriculum, day, period)) {
+					continue;
+				}
+				for (int room = 0; room < this.problem.noOfRooms; room++) {
+					int courseID = this.solution.getCourseID(room, day, period);
+					if (courseID != Solution.EMPTY && contains(this.problem.courseCurricula[courseID], curriculum)) {
+						remove(room * noOfTimeslots + this.problem.calcTimeslotID(day, period));
+						break; // one lecture of a curriculum per period
+					}
+				}
+			}
+			break;
+		case ROOM_DAY:
+			for (int period = 0; period < periodsPerDay; period++) {
+				int slot = seedRoom * noOfTimeslots + this.problem.calcTimeslotID(day, period);
+				if (this.solution.getCourseID(seedRoom, day, period) != Solution.EMPTY) {
+					remove(slot);
+				}
+			}
+			break;
+		default: // COURSE_CLUSTER
+			int noOfCluster = 0;
+			this.cluster[noOfCluster++] = seedCourse;
+			this.isInCluster[seedCourse] = true;
+			int from = this.problem.conflictOffsets[seedCourse];
+			int to = this.problem.conflictOffsets[seedCourse + 1];
+			for (int tries = 0; tries < 2 * CLUSTER_SIZE && noOfCluster < CLUSTER_SIZE && to > from; tries++) {
+				int courseID = this.problem.conflictCourses[from + this.random.nextInt(to - from)];
+				if (!this.isInCluster[courseID]) {
+					this.cluster[noOfCluster++] = courseID;
+					this.isInCluster[courseID] = true;
+				}
+			}
+			// Collect before removing, since removing reorders the occupied slots
+			int noOfOccupied = this.solution.getNoOfOccupiedSlots();
+			int start = this.random.nextInt(noOfOccupied);
+			int noOfFound = 0;
+			for (int i = 0; i < noOfOccupied && noOfFound < this.maxLectures - this.noOfPool; i++) {
+				int slot = this.solution.getOccupiedSlot((start + i) % noOfOccupied);
+				if (this.isInCluster[this.solution.getCourseID(slot / noOfTimeslots, slot % noOfTimeslots)]) {
+					this.insertedSlots[noOfFound++] = slot; // borrowed as scratch, the repair has not started
+				}
+			}
+			for (int i = 0; i < noOfFound; i++) {
+				remove(this.insertedSlots[i]);
+			}
+			for (int i = 0; i < noOfCluster; i++) {
+				this.isInCluster[this.cluster[i]] = false;
+			}
+		}
+	}
+
+	/**
+	 * Removes the lecture in a slot, logs it and adds it to the pool (unless the buffers are full).
+	 * @param slot - The occupied slot.
+	 */
+	private void remove(int slot) {
+		if (this.noOfPool == this.maxLectures) {
+			return;
+		}
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int room = slot / noOfTimeslots;
+		int timeslot = slot % noOfTimeslots;
+		int courseID = this.solution.getCourseID(room, timeslot);
+		this.solution.removeLecture(room, timeslot / this.problem.periodsPerDay, timeslot % this.problem.periodsPerDay);
+		this.removedSlots[this.noOfRemoved] = slot;
+		this.removedCourses[this.noOfRemoved++] = courseID;
+		this.pool[this.noOfPool++] = courseID;
+	}
+
+	// Repair
+
+	/**
+	 * Reinserts the lectures of the pool, each in the cheapest feasible slot (lectures that cannot be placed stay out).
+	 * @param operator - The repair operator.
+	 */
+	private void repair(int operator) {
+		// A fresh timeslot order every cycle breaks ties between equally cheap slots
+		for (int i = this.timeslotOrder.length - 1; i > 0; i--) {
+			int j = this.random.nextInt(i + 1);
+			int timeslot = this.timeslotOrder[i];
+			this.timeslotOrder[i] = this.timeslotOrder[j];
+			this.timeslotOrder[j] = timeslot;
+		}
+		while (this.noOfPool > 0) {
+			int i;
+			if (operator == GREEDY) {
+				i = this.random.nextInt(this.noOfPool);
+			} else {
+				i = mostConstrained();
+			}
+			int courseID = this.pool[i];
+			this.pool[i] = this.pool[--this.noOfPool];
+			insertCheapest(courseID);
+		}
+	}
+
+	/**
+	 * Inserts a lecture of a course in the cheapest feasible empty slot, if there is one.
+	 * @param courseID - The course.
+	 */
+	private void insertCheapest(int courseID) {
+		int periodsPerDay = this.problem.periodsPerDay;
+		int bestSlot = -1;
+		int bestDelta = Integer.MAX_VALUE;
+		for (int timeslot : this.timeslotOrder) {
+			if (!this.solution.isTimeslotFeasible(timeslot, courseID)) {
+				continue;
+			}
+			int day = timeslot / periodsPerDay;
+			int period = timeslot % periodsPerDay;
+			for (int room = 0; room < this.problem.noOfRooms; room++) {
+				if (this.solution.getCourseID(room, timeslot) != Solution.EMPTY) {
+					continue;
+				}
+				int delta = this.solution.deltaInsertLecture(room, day, period, courseID);
+				if (delta < bestDelta) {
+					bestDelta = delta;
+					bestSlot = room * this.problem.noOfTimeslots + timeslot;
+				}
+			}
+		}
+		if (bestSlot == -1) {
+			return;
+		}
+		int timeslot = bestSlot % this.problem.noOfTimeslots;
+		this.solution.insertLecture(bestSlot / this.problem.noOfTimeslots, timeslot / periodsPerDay, timeslot % periodsPerDay, courseID);
+		this.insertedSlots[this.noOfInserted++] = bestSlot;
+	}
+
+	/**
+	 * Finds the lecture of the pool with the fewest feasible timeslots that have an empty room.
+	 * @return - The index in the pool.
+	 */
+	private int mostConstrained() {
+		int best = 0;
+		int fewestOptions = Integer.MAX_VALUE;
+		for (int i = 0; i < this.noOfPool; i++) {
+			int options = 0;
+			for (int timeslot = 0; timeslot < this.problem.noOfTimeslots && options < fewestOptions; timeslot++) {
+				if (this.solution.isTimeslotFeasible(timeslot, this.pool[i]) && hasEmptyRoom(timeslot)) {
+					options++;
+				}
+			}
+			if (options < fewestOptions) {
+				fewestOptions = options;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private boolean hasEmptyRoom(int timeslot) {
+		for (int room = 0; room < this.problem.noOfRooms; room++) {
+			if (this.solution.getCourseID(room, timeslot) == Solution.EMPTY) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Brings the solution back to the state before the cycle: the inserted lectures are removed and the removed put back.
+	 */
+	private void undo() {
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int periodsPerDay = this.problem.periodsPerDay;
+		for (int i = this.noOfInserted - 1; i >= 0; i--) {
+			int timeslot = this.insertedSlots[i] % noOfTimeslots;
+			this.solution.removeLecture(this.insertedSlots[i] / noOfTimeslots, timeslot / periodsPerDay, timeslot % periodsPerDay);
+		}
+		for (int i = this.noOfRemoved - 1; i >= 0; i--) {
+			int timeslot = this.removedSlots[i] % noOfTimeslots;
+			this.solution.insertLecture(this.removedSlots[i] / noOfTimeslots, timeslot / periodsPerDay, timeslot % periodsPerDay, this.removedCourses[i]);
+		}
+	}
+
+	// Adaptive weights
+
+	/**
+	 * Draws an operator with probability proportional to its weight.
+	 * @param weights - The weight of each operator.
+	 * @return - The index of the operator.
+	 */
+	private int roulette(double[] weights) {
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+		double r = this.random.nextDouble() * total;
+		for (int i = 0; i < weights.length - 1; i++) {
+			r -= weights[i];
+			if (r < 0) {
+				return i;
+			}
+		}
+		return weights.length - 1;
+	}
+
+	/**
+	 * Moves the weights towards the average score of each operator in the segment, and starts a new segment.
+	 * @param weights - The weights.
+	 * @param scores - The summed scores in the segment.
+	 * @param uses - The no. of uses in the segment.
+	 */
+	private static void updateWeights(double[] weights, double[] scores, int[] uses) {
+		for (int i = 0; i < weights.length; i++) {
+			if (uses[i] > 0) {
+				// The weights are kept away from zero, so every operator keeps getting a chance
+				weights[i] = Math.max(0.05, (1 - REACTION) * weights[i] + REACTION * scores[i] / uses[i]);
+			}
+			scores[i] = 0;
+			uses[i] = 0;
+		}
+	}
+
+	/**
+	 * Sets the temperature according to how much of the time until the deadline (or of the iteration budget) has passed.
+	 */
+	private void updateTemperature() {
+		double progress = getProgress(this.startTime, this.deadline);
+		double temperature = this.startTemperature * Math.pow(this.endTemperature / this.startTemperature, progress);
+		this.expIndexScale = SimulatedAnnealingSearch.expIndexScale(temperature);
+	}
+
+	private static boolean contains(int[] values, int value) {
+		for (int v : values) {
+			if (v == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
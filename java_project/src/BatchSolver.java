@@ -0,0 +1,258 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a set of instances in one JVM, so JIT warm-up is only paid once.
+ * The instances are loaded one by one on the calling thread and solved concurrently on a fixed pool of workers,
+ * each instance by a single search (as selected in Main) with its own time (or iteration) budget.
+ * Every solution is written in the CodeJudge format, followed by a summary table of all instances.
+ *
+ */
+public class BatchSolver {
+
+	/**
+	 * The outcome of solving one instance.
+	 */
+	static class Result {
+		String name;
+		int cost = Solution.INFEASIBLE;
+		int[] penalties;			// see CostCalculator.getPenaltyCounts
+		long iterations;
+		double timeToBest;			// seconds after the start of the search
+		double time;				// seconds spent on the instance, including the construction
+		String error;				// null if the instance was solved
+	}
+
+	private List<Path> instances;
+	private int noOfWorkers;
+	private double timeLimit;
+	private Path outputDirectory;
+	private SplittableRandom random = new SplittableRandom();	// split once per instance, in the order of the instances
+	private long iterations;									// per instance instead of the time limit (0 when not in use)
+
+	/**
+	 * Constructor.
+	 * @param instances - The directories of the instances (each with the files of Main.DATA_FILES).
+	 * @param noOfWorkers - The no. of instances solved at the same time.
+	 * @param timeLimit - The time budget of each instance in seconds.
+	 * @param outputDirectory - Where the solutions and the summary are written.
+	 */
+	public BatchSolver(List<Path> instances, int noOfWorkers, double timeLimit, Path outputDirectory) {
+		this.instances = instances;
+		this.noOfWorkers = noOfWorkers;
+		this.timeLimit = timeLimit;
+		this.outputDirectory = outputDirectory;
+	}
+
+	/**
+	 * Sets the seed that the random generator of each instance is split from.
+	 * @param seed - The seed.
+	 */
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Lets each instance run a fixed no. of iterations instead of the time limit (reproducible with setSeed).
+	 * @param iterations - The no. of iterations per instance, or 0 to use the time limit.
+	 */
+	public void setIterations(long iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Finds the instances given by a path:
+	 * a glob (e.g. TestDataUTT/Test0*) matching instance directories, an instance directory,
+	 * or a directory whose subdirectories are instances.
+	 * @param path - The path or glob.
+	 * @return - The instance directories in sorted order.
+	 * @throws IOException
+	 */
+	public static List<Path> findInstances(String path) throws IOException {
+		List<Path> instances = new ArrayList<Path>();
+		if (path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('[') >= 0 || path.indexOf('{') >= 0) {
+			Path glob = Paths.get(path);
+			Path directory = glob.getParent() == null ? Paths.get(".") : glob.getParent();
+			PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob.getFileName());
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+				for (Path entry : entries) {
+					if (matcher.matches(entry.getFileName()) && isInstance(entry)) {
+						instances.add(entry);
+					}
+				}
+			}
+		} else if (isInstance(Paths.get(path))) {
+			instances.add(Paths.get(path));
+		} else {
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(Paths.get(path))) {
+				for (Path entry : entries) {
+					if (isInstance(entry)) {
+						instances.add(entry);
+					}
+				}
+			}
+		}
+		Collections.sort(instances);
+		return instances;
+	}
+
+	/**
+	 * Solves all instances and writes the solutions and the summary (summary.csv) to the output directory.
+	 * @param out - Where to print the summary table.
+	 * @return - The result of each instance, in the order of the instances.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public List<Result> run(PrintStream out) throws IOException, InterruptedException {
+		Files.createDirectories(this.outputDirectory);
+		ExecutorService pool = Executors.newFixedThreadPool(this.noOfWorkers);
+		// The data files of an instance are parsed in parallel on their own threads, not queued behind the solving
+		ExecutorService loader = this.noOfWorkers > 1 ? Executors.newFixedThreadPool(this.noOfWorkers) : null;
+		List<Future<Result>> futures = new ArrayList<Future<Result>>();
+		List<Result> results = new ArrayList<Result>();
+		try {
+			for (final Path instance : this.instances) {
+				final Result result = new Result();
+				result.name = instance.getFileName().toString();
+				final SplittableRandom instanceRandom = this.random.split();
+				try {
+					final Problem problem = Main.loadProblem(instance.toString() + instance.getFileSystem().getSeparator(), Main.DATA_FILES, loader);
+					futures.add(pool.submit(new Callable<Result>() {
+						public Result call() throws IOException {
+							return solve(problem, instanceRandom, result);
+						}
+					}));
+				} catch (IOException e) {
+					result.error = e.getMessage();
+					futures.add(null);
+				}
+				results.add(result);
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				if (futures.get(i) == null) {
+					continue;
+				}
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException e) {
+					results.get(i).error = String.valueOf(e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+			if (loader != null) {
+				loader.shutdown();
+			}
+		}
+		printSummary(results, out);
+		try (Writer writer = Files.newBufferedWriter(this.outputDirectory.resolve("summary.csv"), StandardCharsets.UTF_8)) {
+			writeSummaryCsv(results, writer);
+		}
+		return results;
+	}
+
+	/**
+	 * Solves one instance within the time budget and writes its solution (runs on a worker).
+	 * @param problem - The problem.
+	 * @param random - The random generator of the search.
+	 * @param result - Where to store the outcome.
+	 * @return - The result.
+	 * @throws IOException
+	 */
+	private Result solve(Problem problem, SplittableRandom random, Result result) throws IOException {
+		long startTime = System.nanoTime();
+		long deadline = startTime + (long) (this.timeLimit * 1e9);
+		Solution initialSolution = Main.createInitialSolution(problem);
+		Search search = Main.createSearch(initialSolution, random, deadline, false);
+		if (this.iterations > 0) {
+			search.setIterationBudget(this.iterations);
+		}
+		Telemetry telemetry = new Telemetry(result.name, startTime);
+		search.setTelemetry(telemetry);
+		telemetry.recordBest(initialSolution);
+		long iteration = 0;
+		while (this.iterations > 0 ? iteration++ < this.iterations : System.nanoTime() < deadline) {
+			search.iterate();
+		}
+		Solution bestSolution = search.getBestSolution();
+		result.cost = bestSolution.getCost();
+		result.penalties = bestSolution.getPenaltyCounts();
+		result.iterations = search.getUsefulIterations() + search.getWastedIterations();
+		result.timeToBest = telemetry.getBest().time / 1e9;
+		result.time = (System.nanoTime() - startTime) / 1e9;
+		Path file = this.outputDirectory.resolve(result.name + ".sol");
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			new SolutionWriter(writer).writeCodeJudge(bestSolution);
+		}
+		return result;
+	}
+
+	/**
+	 * Prints the results as a table.
+	 * @param results - The results.
+	 * @param out - Where to print.
+	 */
+	static void printSummary(List<Result> results, PrintStream out) {
+		out.println(String.format("%-12s %9s %6s %6s %6s %6s %6s %12s %10s %8s",
+				"Instance", "Objective", "Unsch", "RoomCa", "RoomSt", "MinWD", "CurrCo", "Iterations", "TimeToBest", "Time"));
+		long totalCost = 0;
+		for (Result result : results) {
+			if (result.error != null) {
+				out.println(String.format("%-12s FAILED: %s", result.name, result.error));
+				continue;
+			}
+			totalCost += result.cost;
+			out.println(String.format(Locale.ROOT, "%-12s %9d %6d %6d %6d %6d %6d %12d %10.2f %8.2f", result.name, result.cost,
+					result.penalties[0], result.penalties[1], result.penalties[2], result.penalties[3], result.penalties[4],
+					result.iterations, result.timeToBest, result.time));
+		}
+		out.println(String.format("%-12s %9d", "Total", totalCost));
+	}
+
+	/**
+	 * Writes the results as CSV.
+	 * @param results - The results.
+	 * @param writer - Where to write.
+	 * @throws IOException
+	 */
+	static void writeSummaryCsv(List<Result> results, Writer writer) throws IOException {
+		writer.write("instance,objective");
+		for (String penalty : CostCalculator.PENALTY_NAMES) {
+			writer.write("," + penalty);
+		}
+		writer.write(",iterations,timeToBest,time,error\n");
+		for (Result result : results) {
+			writer.write(result.name);
+			if (result.error != null) {
+				writer.write(",,,,,,,,,," + result.error.replace(',', ';') + "\n");
+				continue;
+			}
+			writer.write("," + result.cost);
+			for (int count : result.penalties) {
+				writer.write("," + count);
+			}
+			writer.write(String.format(Locale.ROOT, ",%d,%.3f,%.3f,\n", result.iterations, result.timeToBest, result.time));
+		}
+	}
+
+	private static boolean isInstance(Path directory) {
+		return Files.isRegularFile(directory.resolve(Main.DATA_FILES[0]));
+	}
+}
@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Periodically dumps the best solution found so far to a file (in the CodeJudge format) on a background thread.
+ * The searches only offer a solution that is never changed again, so they are not paused while it is written.
+ * The file is written under a temporary name and then moved in place, so it is always complete.
+ *
+ */
+public class CheckpointWriter {
+
+	private final Path file;
+	private final long interval;				// milliseconds between checks for a new best
+	private final AtomicReference<Solution> latest = new AtomicReference<Solution>();
+	private Solution written;					// only accessed by the writing thread (and by stop)
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * @param file - The file to write.
+	 * @param interval - The time between checkpoints in milliseconds.
+	 */
+	public CheckpointWriter(Path file, long interval) {
+		this.file = file;
+		this.interval = interval;
+	}
+
+	/**
+	 * Offers a new best solution. It is written at the next checkpoint unless a better one is offered first.
+	 * @param solution - The solution, which must not be changed afterwards (e.g. from Solution.copySnapshot).
+	 */
+	public void offer(Solution solution) {
+		Solution current = this.latest.get();
+		while (current == null || solution.getCost() < current.getCost()) {
+			if (this.latest.compareAndSet(current, solution)) {
+				return;
+			}
+			current = this.latest.get();
+		}
+	}
+
+	/**
+	 * Gets the cost of the best solution offered.
+	 * @return - The cost, or Solution.INFEASIBLE if nothing has been offered.
+	 */
+	public int getLatestCost() {
+		Solution current = this.latest.get();
+		return current == null ? Solution.INFEASIBLE : current.getCost();
+	}
+
+	/**
+	 * Starts writing checkpoints on a background (daemon) thread.
+	 */
+	public synchronized void start() {
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "checkpoint-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					writeLatest();
+				} catch (IOException e) {
+					System.err.println("Could not write checkpoint " + file + ": " + e);
+				}
+			}
+		}, this.interval, this.interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background thread and writes the latest solution if it has not been written yet.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void stop() throws IOException, InterruptedException {
+		ScheduledExecutorService executor;
+		synchronized (this) {
+			executor = this.executor;
+			this.executor = null;
+		}
+		if (executor != null) {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		writeLatest();
+	}
+
+	/**
+	 * Writes the latest offered solution if it differs from the last one written.
+	 * @throws IOException
+	 */
+	private synchronized void writeLatest() throws IOException {
+		Solution solution = this.latest.get();
+		if (solution == null || solution == this.written) {
+			return;
+		}
+		Path temporaryFile = Files.createTempFile(this.file.toAbsolutePath().getParent(), this.file.getFileName().toString(), ".tmp");
+		try {
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+				new SolutionWriter(writer).writeCodeJudge(solution);
+			}
+			Files.move(temporaryFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+		this.written = solution;
+	}
+}
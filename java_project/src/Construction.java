@@ -0,0 +1,101 @@
+/**
+ * Greedy construction of an initial timetable (saturation degree / DSATUR style).
+ * The course with the fewest remaining options is scheduled first, and each lecture is put in the
+ * free slot where it adds the least cost, preferring the smallest room when slots are equally good.
+ *
+ */
+public class Construction {
+
+	/**
+	 * Schedules as many of the unscheduled lectures of the solution as possible.
+	 * Lectures that are already scheduled are kept.
+	 * @param solution - The solution to fill in.
+	 * @return - The no. of lectures that could not be scheduled.
+	 */
+	public static int construct(Solution solution) {
+		Problem problem = solution.problem;
+		int[] remaining = new int[problem.noOfCourses];		// courseID	-> lectures still to place
+		int[] freeRooms = new int[problem.noOfTimeslots];	// timeslot	-> no. of empty rooms
+		for (int courseID = 0; courseID < problem.noOfCourses; courseID++) {
+			remaining[courseID] = solution.getUnscheduled(courseID);
+		}
+		for (int timeslot = 0; timeslot < problem.noOfTimeslots; timeslot++) {
+			for (int room = 0; room < problem.noOfRooms; room++) {
+				if (solution.getCourseID(room, timeslot) == Solution.EMPTY) {
+					freeRooms[timeslot] += 1;
+				}
+			}
+		}
+		int noOfFailed = 0;
+		while (true) {
+			// Select the most constrained course: fewest feasible timeslots, then most conflicts, then most lectures left
+			int courseID = -1;
+			int fewestOptions = Integer.MAX_VALUE;
+			for (int c = 0; c < problem.noOfCourses; c++) {
+				if (remaining[c] == 0) {
+					continue;
+				}
+				int options = 0;
+				for (int timeslot = 0; timeslot < problem.noOfTimeslots; timeslot++) {
+					if (freeRooms[timeslot] > 0 && solution.isTimeslotFeasible(timeslot, c)) {
+						options++;
+					}
+				}
+				if (courseID == -1 || options < fewestOptions
+						|| (options == fewestOptions && isMoreConstrained(problem, c, courseID, remaining))) {
+					courseID = c;
+					fewestOptions = options;
+				}
+			}
+			if (courseID == -1) {
+				break;
+			}
+			if (fewestOptions == 0) {
+				noOfFailed += remaining[courseID];
+				remaining[courseID] = 0;
+				continue;
+			}
+			// Place one lecture in the cheapest free slot (best fitting room on ties)
+			int bestRoom = -1, bestTimeslot = -1, bestDelta = Integer.MAX_VALUE;
+			for (int timeslot = 0; timeslot < problem.noOfTimeslots; timeslot++) {
+				if (freeRooms[timeslot] == 0 || !solution.isTimeslotFeasible(timeslot, courseID)) {
+					continue;
+				}
+				int day = timeslot / problem.periodsPerDay;
+				int period = timeslot % problem.periodsPerDay;
+				for (int room = 0; room < problem.noOfRooms; room++) {
+					if (solution.getCourseID(room, timeslot) != Solution.EMPTY) {
+						continue;
+					}
+					int delta = solution.deltaInsertLecture(room, day, period, courseID);
+					if (delta < bestDelta || (delta == bestDelta && problem.roomCapacities[room] < problem.roomCapacities[bestRoom])) {
+						bestRoom = room;
+						bestTimeslot = timeslot;
+						bestDelta = delta;
+					}
+				}
+			}
+			solution.insertLecture(bestRoom, bestTimeslot / problem.periodsPerDay, bestTimeslot % problem.periodsPerDay, courseID);
+			freeRooms[bestTimeslot] += -1;
+			remaining[courseID] += -1;
+		}
+		return noOfFailed;
+	}
+
+	/**
+	 * Breaks ties between courses with the same no. of options.
+	 * @param problem - The problem.
+	 * @param courseA - A course ID.
+	 * @param courseB - Another course ID.
+	 * @param remaining - The no. of lectures left to place of each course.
+	 * @return - Whether courseA should be scheduled before courseB.
+	 */
+	private static boolean isMoreConstrained(Problem problem, int courseA, int courseB, int[] remaining) {
+		int degreeA = problem.conflictDegree(courseA);
+		int degreeB = problem.conflictDegree(courseB);
+		if (degreeA != degreeB) {
+			return degreeA > degreeB;
+		}
+		return remaining[courseA] > remaining[courseB];
+	}
+}
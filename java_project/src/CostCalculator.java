@@ -1,5 +1,3 @@
-import java.util.Iterator;
-
 /**
  * Calculating the cost of a solution by keeping track of the change in cost (the delta-function).
  * It is assumed that the solution is only changed by inserting or removing lectures from the timetable.
@@ -9,6 +7,10 @@ import java.util.Iterator;
  *   > returns total cost after the insert.
  * - updateCostRemove(int room, int day, int period, int courseID)
  *   > returns total cost after the remove.
+ * - deltaInsert/deltaRemove/deltaMove(...)
+ *   > returns the change in total cost WITHOUT changing any state (feasibility is not checked).
+ * - deltaRelocate(...)
+ *   > same as above for a set of lectures that are relocated simultaneously (swaps, chains).
  *   
  */
 public class CostCalculator {
@@ -19,6 +21,12 @@ public class CostCalculator {
 	final static int COST_CURRICULUMCOMPACTNESS	= 2;
 	final static int COST_MINIMUMWORKINGDAYS	= 5;
 	final static int COST_UNSCHEDULED			= 10;
+	
+	// The penalties in the order of getPenaltyCounts
+	final static String[] PENALTY_NAMES = {"unscheduled", "roomCapacity", "roomStability", "minimumWorkingDays", "curriculumCompactness"};
+	
+	// Used when no period should be regarded as vacated in the compactness calculation
+	private final static int NO_PERIOD = -2;
 
 	// Bookkeeping on the number of each penalty and the total cost
 	public int costTotal;
@@ -33,6 +41,19 @@ public class CostCalculator {
 	private int[] courseDaysBelowMinimum;		// courseID				-> no. of days below minimum
 	private int[][] coursesRooms;				// courseID + room		-> no. of lectures in room
 	private int[] courseNoOfRooms;				// courseID				-> no. of distinct rooms
+	private int[][] coursesCurricula;			// courseID				-> curricula of the course
+	private long[] curriculaDays;				// curriculum * noOfDays + day	-> periods where the curriculum is taught (bitmask)
+	
+	// Scratch space for deltaRelocate (touched entries are reset after each call)
+	private int[] courseRoomChange;				// courseID * noOfRooms + room			-> change in no. of lectures
+	private int[] courseDayChange;				// courseID * noOfDays + day			-> change in no. of lectures
+	private int[] courseRoomsChange;			// courseID								-> change in no. of distinct rooms
+	private int[] courseDaysChange;				// courseID								-> change in no. of distinct days
+	private long[] curriculumDayRemoved;		// curriculum * noOfDays + day			-> periods vacated
+	private long[] curriculumDayAdded;			// curriculum * noOfDays + day			-> periods occupied
+	private boolean[] isCourseRoomTouched, isCourseDayTouched, isCourseTouched, isCurriculumDayTouched;
+	private int[] touchedCourseRooms, touchedCourseDays, touchedCourses, touchedCurriculumDays;
+	private int maxCurriculaPerCourse;
 
 	// References to the problem and the solution which cost we are calculating
 	private Problem problem;
@@ -49,20 +70,36 @@ public class CostCalculator {
 		this.coursesDays = new int[problem.noOfCourses][problem.noOfDays];
 		this.coursesRooms = new int[problem.noOfCourses][problem.noOfRooms];
 		this.courseNoOfRooms = new int[problem.noOfCourses];
+		if (problem.periodsPerDay > 64) {
+			throw new IllegalArgumentException("At most 64 periods per day are supported, got " + problem.periodsPerDay);
+		}
+		this.curriculaDays = new long[problem.noOfCurricula * problem.noOfDays];
 		
 		// Initialize Unscheduled & DaysBelowMinimum
 		int initialUnscheduled = 0;
 		int initialDaysBelowMinimum = 0;
 		this.courseDaysBelowMinimum = new int[problem.noOfCourses];
-		Iterator<Integer> courseIDs = problem.courses.keySet().iterator();
-		while (courseIDs.hasNext()) {
-			int courseID = courseIDs.next();
-			Problem.Course course = problem.courses.get(courseID);
-			initialUnscheduled += course.noOfLectures;
-			this.courseDaysBelowMinimum[courseID] = course.minWorkDays;
-			initialDaysBelowMinimum += course.minWorkDays;
+		this.coursesCurricula = problem.courseCurricula;
+		for (int courseID = 0; courseID < problem.noOfCourses; courseID++) {
+			initialUnscheduled += problem.courseLectures[courseID];
+			this.courseDaysBelowMinimum[courseID] = problem.courseMinWorkDays[courseID];
+			initialDaysBelowMinimum += problem.courseMinWorkDays[courseID];
+			this.maxCurriculaPerCourse = Math.max(this.maxCurriculaPerCourse, this.coursesCurricula[courseID].length);
 		}
 		
+		// Scratch space for deltaRelocate
+		this.courseRoomChange = new int[problem.noOfCourses * problem.noOfRooms];
+		this.courseDayChange = new int[problem.noOfCourses * problem.noOfDays];
+		this.courseRoomsChange = new int[problem.noOfCourses];
+		this.courseDaysChange = new int[problem.noOfCourses];
+		this.curriculumDayRemoved = new long[problem.noOfCurricula * problem.noOfDays];
+		this.curriculumDayAdded = new long[problem.noOfCurricula * problem.noOfDays];
+		this.isCourseRoomTouched = new boolean[this.courseRoomChange.length];
+		this.isCourseDayTouched = new boolean[this.courseDayChange.length];
+		this.isCourseTouched = new boolean[problem.noOfCourses];
+		this.isCurriculumDayTouched = new boolean[this.curriculumDayAdded.length];
+		ensureRelocateCapacity(2 * problem.noOfRooms); // the largest relocation of the actions (a Kempe chain), as Solution.relocatedCourses
+		
 		// Initialize cost
 		this.countCurriculumCompactness = 0;
 		this.countRoomCapacity = 0;
@@ -99,6 +136,206 @@ public class CostCalculator {
 		return updateCost(false, room, day, period, courseID);
 	}
 	
+	/**
+	 * Calculates the change in cost of inserting a lecture, without changing any state.
+	 * @param room - The room where the lecture would be inserted.
+	 * @param day - The day where the lecture would be inserted.
+	 * @param period - The period where the lecture would be inserted.
+	 * @param courseID - The course ID of the lecture that would be inserted.
+	 * @return - The change in total cost.
+	 */
+	public int deltaInsert(int room, int day, int period, int courseID) {
+		return deltaCost(true, room, day, period, courseID);
+	}
+	
+	/**
+	 * Calculates the change in cost of removing a lecture, without changing any state.
+	 * @param room - The room where the lecture is scheduled.
+	 * @param day - The day where the lecture is scheduled.
+	 * @param period - The period where the lecture is scheduled.
+	 * @param courseID - The course ID of the lecture that would be removed.
+	 * @return - The change in total cost.
+	 */
+	public int deltaRemove(int room, int day, int period, int courseID) {
+		return deltaCost(false, room, day, period, courseID);
+	}
+	
+	/**
+	 * Calculates the change in cost of moving a lecture to another slot, without changing any state.
+	 * This equals a remove followed by an insert, where the insert sees the timetable without the lecture.
+	 * @param courseID - The course ID of the lecture that would be moved.
+	 * @param fromRoom - The room where the lecture is scheduled.
+	 * @param fromDay - The day where the lecture is scheduled.
+	 * @param fromPeriod - The period where the lecture is scheduled.
+	 * @param toRoom - The room where the lecture would be moved to.
+	 * @param toDay - The day where the lecture would be moved to.
+	 * @param toPeriod - The period where the lecture would be moved to.
+	 * @return - The change in total cost.
+	 */
+	public int deltaMove(int courseID, int fromRoom, int fromDay, int fromPeriod, int toRoom, int toDay, int toPeriod) {
+		int delta = 0;
+		// RoomCapacity and RoomStability
+		if (fromRoom != toRoom) {
+			delta += (deltaCountRoomCapacity(true, toRoom, courseID) + deltaCountRoomCapacity(false, fromRoom, courseID)) * COST_ROOMCAPACITY;
+			int noOfRooms = this.courseNoOfRooms[courseID];
+			int newNoOfRooms = noOfRooms;
+			if (this.coursesRooms[courseID][fromRoom] == 1) {
+				newNoOfRooms += -1;
+			}
+			if (this.coursesRooms[courseID][toRoom] == 0) {
+				newNoOfRooms += 1;
+			}
+			delta += (Math.max(0, newNoOfRooms - 1) - Math.max(0, noOfRooms - 1)) * COST_ROOMSTABILITY;
+		}
+		// MinimumWorkingDays
+		if (fromDay != toDay) {
+			int daysBelowMinimum = this.courseDaysBelowMinimum[courseID];
+			int newDaysBelowMinimum = daysBelowMinimum;
+			if (this.coursesDays[courseID][fromDay] == 1) {
+				newDaysBelowMinimum += 1;
+			}
+			if (this.coursesDays[courseID][toDay] == 0) {
+				newDaysBelowMinimum += -1;
+			}
+			delta += (Math.max(0, newDaysBelowMinimum) - Math.max(0, daysBelowMinimum)) * COST_MINIMUMWORKINGDAYS;
+		}
+		// CurriculumCompactness (the insert must not see the vacated period if it is on the same day)
+		if (fromDay != toDay || fromPeriod != toPeriod) {
+			int vacatedPeriod = (fromDay == toDay) ? fromPeriod : NO_PERIOD;
+			delta += (deltaCountCurriculumCompactness(false, fromDay, fromPeriod, courseID, NO_PERIOD) +
+					  deltaCountCurriculumCompactness(true, toDay, toPeriod, courseID, vacatedPeriod)) * COST_CURRICULUMCOMPACTNESS;
+		}
+		return delta;
+	}
+	
+	/**
+	 * Calculates the change in cost of relocating a set of scheduled lectures simultaneously, without changing any state.
+	 * The lectures are regarded as first being removed all together and then inserted at their new slots,
+	 * so they may move into each others slots (swaps, Kempe chains etc.).
+	 * @param noOfLectures - The number of lectures that are relocated.
+	 * @param courseIDs - The course ID of each relocated lecture.
+	 * @param fromRooms - The room where each lecture is scheduled.
+	 * @param fromTimeslots - The timeslot where each lecture is scheduled.
+	 * @param toRooms - The room where each lecture would be moved to.
+	 * @param toTimeslots - The timeslot where each lecture would be moved to.
+	 * @return - The change in total cost.
+	 */
+	public int deltaRelocate(int noOfLectures, int[] courseIDs, int[] fromRooms, int[] fromTimeslots, int[] toRooms, int[] toTimeslots) {
+		ensureRelocateCapacity(noOfLectures);
+		int deltaCountRoomCapacity = 0;
+		int noOfCourseRooms = 0, noOfCourseDays = 0, noOfCourses = 0, noOfCurriculumDays = 0;
+		
+		// Collect the changes made by each lecture
+		for (int i = 0; i < noOfLectures; i++) {
+			int courseID = courseIDs[i];
+			int fromDay = fromTimeslots[i] / this.problem.periodsPerDay;
+			int fromPeriod = fromTimeslots[i] % this.problem.periodsPerDay;
+			int toDay = toTimeslots[i] / this.problem.periodsPerDay;
+			int toPeriod = toTimeslots[i] % this.problem.periodsPerDay;
+			deltaCountRoomCapacity += deltaCountRoomCapacity(true, toRooms[i], courseID) + deltaCountRoomCapacity(false, fromRooms[i], courseID);
+			noOfCourseRooms = touch(this.courseRoomChange, this.isCourseRoomTouched, this.touchedCourseRooms, noOfCourseRooms,
+					courseID * this.problem.noOfRooms + fromRooms[i], -1);
+			noOfCourseRooms = touch(this.courseRoomChange, this.isCourseRoomTouched, this.touchedCourseRooms, noOfCourseRooms,
+					courseID * this.problem.noOfRooms + toRooms[i], 1);
+			noOfCourseDays = touch(this.courseDayChange, this.isCourseDayTouched, this.touchedCourseDays, noOfCourseDays,
+					courseID * this.problem.noOfDays + fromDay, -1);
+			noOfCourseDays = touch(this.courseDayChange, this.isCourseDayTouched, this.touchedCourseDays, noOfCourseDays,
+					courseID * this.problem.noOfDays + toDay, 1);
+			if (!this.isCourseTouched[courseID]) {
+				this.isCourseTouched[courseID] = true;
+				this.touchedCourses[noOfCourses++] = courseID;
+			}
+			int[] curricula = this.coursesCurricula[courseID];
+			for (int c = 0; c < curricula.length; c++) {
+				int fromIndex = curricula[c] * this.problem.noOfDays + fromDay;
+				int toIndex = curricula[c] * this.problem.noOfDays + toDay;
+				if (!this.isCurriculumDayTouched[fromIndex]) {
+					this.isCurriculumDayTouched[fromIndex] = true;
+					this.touchedCurriculumDays[noOfCurriculumDays++] = fromIndex;
+				}
+				if (!this.isCurriculumDayTouched[toIndex]) {
+					this.isCurriculumDayTouched[toIndex] = true;
+					this.touchedCurriculumDays[noOfCurriculumDays++] = toIndex;
+				}
+				this.curriculumDayRemoved[fromIndex] |= 1L << fromPeriod;
+				this.curriculumDayAdded[toIndex] |= 1L << toPeriod;
+			}
+		}
+		
+		// RoomStability: change in distinct rooms per course
+		for (int i = 0; i < noOfCourseRooms; i++) {
+			int index = this.touchedCourseRooms[i];
+			int courseID = index / this.problem.noOfRooms;
+			int before = this.coursesRooms[courseID][index % this.problem.noOfRooms];
+			int after = before + this.courseRoomChange[index];
+			this.courseRoomsChange[courseID] += (after > 0 ? 1 : 0) - (before > 0 ? 1 : 0);
+			this.courseRoomChange[index] = 0;
+			this.isCourseRoomTouched[index] = false;
+		}
+		// MinimumWorkingDays: change in distinct days per course
+		for (int i = 0; i < noOfCourseDays; i++) {
+			int index = this.touchedCourseDays[i];
+			int courseID = index / this.problem.noOfDays;
+			int before = this.coursesDays[courseID][index % this.problem.noOfDays];
+			int after = before + this.courseDayChange[index];
+			this.courseDaysChange[courseID] += (after > 0 ? 1 : 0) - (before > 0 ? 1 : 0);
+			this.courseDayChange[index] = 0;
+			this.isCourseDayTouched[index] = false;
+		}
+		int deltaCountRoomStability = 0;
+		int deltaCountMinWorkDays = 0;
+		for (int i = 0; i < noOfCourses; i++) {
+			int courseID = this.touchedCourses[i];
+			int noOfRooms = this.courseNoOfRooms[courseID];
+			int daysBelowMinimum = this.courseDaysBelowMinimum[courseID];
+			deltaCountRoomStability += Math.max(0, noOfRooms + this.courseRoomsChange[courseID] - 1) - Math.max(0, noOfRooms - 1);
+			deltaCountMinWorkDays += Math.max(0, daysBelowMinimum - this.courseDaysChange[courseID]) - Math.max(0, daysBelowMinimum);
+			this.courseRoomsChange[courseID] = 0;
+			this.courseDaysChange[courseID] = 0;
+			this.isCourseTouched[courseID] = false;
+		}
+		// CurriculumCompactness: change in isolated lectures per curriculum and day
+		int deltaCountCurriculumCompactness = 0;
+		for (int i = 0; i < noOfCurriculumDays; i++) {
+			int index = this.touchedCurriculumDays[i];
+			long before = this.curriculaDays[index];
+			long after = (before & ~this.curriculumDayRemoved[index]) | this.curriculumDayAdded[index];
+			deltaCountCurriculumCompactness += countIsolated(after) - countIsolated(before);
+			this.curriculumDayRemoved[index] = 0;
+			this.curriculumDayAdded[index] = 0;
+			this.isCurriculumDayTouched[index] = false;
+		}
+		
+		return deltaCountCurriculumCompactness * COST_CURRICULUMCOMPACTNESS +
+			   deltaCountRoomCapacity * COST_ROOMCAPACITY +
+			   deltaCountRoomStability * COST_ROOMSTABILITY +
+			   deltaCountMinWorkDays * COST_MINIMUMWORKINGDAYS;
+	}
+	
+	/**
+	 * Gets the periods of a day where a curriculum is taught.
+	 * @param curriculum - The queried curriculum.
+	 * @param day - The queried day.
+	 * @return - A bitmask with bit p set if the curriculum is taught in period p.
+	 */
+	public long getCurriculumDayPeriods(int curriculum, int day) {
+		return this.curriculaDays[curriculum * this.problem.noOfDays + day];
+	}
+	
+	/**
+	 * Gets the current count of each penalty.
+	 * @return - The counts in the order of PENALTY_NAMES.
+	 */
+	public int[] getPenaltyCounts() {
+		return new int[] {
+			this.countUnscheduled,
+			this.countRoomCapacity,
+			this.countRoomStability,
+			this.countMinimumWorkingDays,
+			this.countCurriculumCompactness
+		};
+	}
+	
 	/**
 	 * Gives a textual overview of the current state of the cost-function.
 	 * This text is used as header when outputting solutions to codejudge.compute.dtu.dk.
@@ -124,11 +361,10 @@ public class CostCalculator {
 	 * @return - The total cost.
 	 */
 	private int updateCost(boolean isInsertOperation, int room, int day, int period, int courseID) {
-		Problem.Course course = this.problem.courses.get(courseID);
 		
 		// Calculate penalty count deltas
-		int deltaCountRoomCapacity = deltaCountRoomCapacity(isInsertOperation, room, course);
-		int deltaCountCurriculumCompactness = deltaCountCurriculumCompactness(isInsertOperation, day, period, course);
+		int deltaCountRoomCapacity = deltaCountRoomCapacity(isInsertOperation, room, courseID);
+		int deltaCountCurriculumCompactness = deltaCountCurriculumCompactness(isInsertOperation, day, period, courseID, NO_PERIOD);
 		int deltaCountMinWorkDays = deltaCountMinimumWorkingDays(isInsertOperation, day, courseID);
 		int deltaCountRoomStability = deltaCountRoomStability(isInsertOperation, room, courseID);
 		int deltaCountUnscheduled = deltaCountUnscheduled(isInsertOperation);
@@ -148,9 +384,69 @@ public class CostCalculator {
 		this.countCurriculumCompactness += deltaCountCurriculumCompactness;
 		this.costTotal += deltaTotalCost;
 		
+		// Update which days and rooms the course is allocated to
+		updateCourseAllocation(isInsertOperation, room, day, period, courseID);
+		
 		return this.costTotal;
 	}
 	
+	/**
+	 * Calculates the change in total cost of an insert/remove operation without changing any state.
+	 * @param isInsertOperation - Whether the operation is insert (or remove).
+	 * @param room - The room where the lecture is inserted/removed.
+	 * @param day - The day where the lecture is inserted/removed.
+	 * @param period - The period where the lecture is inserted/removed.
+	 * @param courseID - The course ID that is inserted/removed.
+	 * @return - The change in total cost.
+	 */
+	private int deltaCost(boolean isInsertOperation, int room, int day, int period, int courseID) {
+		return deltaCountCurriculumCompactness(isInsertOperation, day, period, courseID, NO_PERIOD) * COST_CURRICULUMCOMPACTNESS +
+			   deltaCountRoomCapacity(isInsertOperation, room, courseID) * COST_ROOMCAPACITY +
+			   deltaCountRoomStability(isInsertOperation, room, courseID) * COST_ROOMSTABILITY +
+			   deltaCountMinimumWorkingDays(isInsertOperation, day, courseID) * COST_MINIMUMWORKINGDAYS +
+			   deltaCountUnscheduled(isInsertOperation) * COST_UNSCHEDULED;
+	}
+	
+	/**
+	 * Updates the bookkeeping of which days and rooms each course is allocated to,
+	 * and which periods each curriculum is taught in.
+	 * @param insert - Whether the operation is insert (or remove).
+	 * @param room - The room where the lecture is inserted/removed.
+	 * @param day - The day where the lecture is inserted/removed.
+	 * @param period - The period where the lecture is inserted/removed.
+	 * @param courseID - The course ID that is inserted/removed.
+	 */
+	private void updateCourseAllocation(boolean insert, int room, int day, int period, int courseID) {
+		// A curriculum is taught at most once per timeslot, so a single bit per period suffices
+		int[] curricula = this.coursesCurricula[courseID];
+		for (int c = 0; c < curricula.length; c++) {
+			if (insert) {
+				this.curriculaDays[curricula[c] * this.problem.noOfDays + day] |= 1L << period;
+			} else {
+				this.curriculaDays[curricula[c] * this.problem.noOfDays + day] &= ~(1L << period);
+			}
+		}
+		if (insert) {
+			if (this.coursesRooms[courseID][room] == 0) {
+				this.courseNoOfRooms[courseID] += 1;
+			}
+			this.coursesRooms[courseID][room] += 1;
+			if (this.coursesDays[courseID][day] == 0) {
+				this.courseDaysBelowMinimum[courseID] += -1;
+			}
+			this.coursesDays[courseID][day] += 1;
+		} else {
+			if (this.coursesRooms[courseID][room] == 1) {
+				this.courseNoOfRooms[courseID] += -1;
+			}
+			this.coursesRooms[courseID][room] += -1;
+			if (this.coursesDays[courseID][day] == 1) {
+				this.courseDaysBelowMinimum[courseID] += 1;
+			}
+			this.coursesDays[courseID][day] += -1;
+		}
+	}
+	
 	/**
 	 * Calculates the change in Unscheduled.
 	 * @param insert - Whether the operation is insert (or remove).
@@ -172,25 +468,16 @@ public class CostCalculator {
 	 * @return - The number of additional rooms used after the operation (-1, 0 or 1).
 	 */
 	private int deltaCountRoomStability(boolean insert, int room, int courseID) {
-		int deltaCountRooms = 0;
 		if (insert) {
-			if (this.coursesRooms[courseID][room] == 0) {
-				this.courseNoOfRooms[courseID] += 1;
-				if (this.courseNoOfRooms[courseID] > 1) { // We used an extra room
-					deltaCountRooms = 1;
-				}
+			if (this.coursesRooms[courseID][room] == 0 && this.courseNoOfRooms[courseID] > 0) { // We use an extra room
+				return 1;
 			}
-			this.coursesRooms[courseID][room] += 1;
 		} else {
-			if (this.coursesRooms[courseID][room] == 1) {
-				this.courseNoOfRooms[courseID] += -1;
-				if (this.courseNoOfRooms[courseID] > 0) { // We used a room less
-					deltaCountRooms = -1;
-				}
+			if (this.coursesRooms[courseID][room] == 1 && this.courseNoOfRooms[courseID] > 1) { // We use a room less
+				return -1;
 			}
-			this.coursesRooms[courseID][room] += -1;
 		}
-		return deltaCountRooms;
+		return 0;
 	}
 
 	/**
@@ -201,62 +488,74 @@ public class CostCalculator {
 	 * @return - The change in the number of days below minimum (-1, 0 or 1).
 	 */
 	private int deltaCountMinimumWorkingDays(boolean insert, int day, int courseID) {
-		int deltaCountDaysBelowMin = 0;
 		if (insert) {
-			if (this.coursesDays[courseID][day] == 0) {
-				this.courseDaysBelowMinimum[courseID] += -1;
-				if (this.courseDaysBelowMinimum[courseID] >= 0) { // We improved
-					deltaCountDaysBelowMin = -1;
-				}
+			if (this.coursesDays[courseID][day] == 0 && this.courseDaysBelowMinimum[courseID] > 0) { // We improve
+				return -1;
 			}
-			this.coursesDays[courseID][day] += 1;
 		} else {
-			if (this.coursesDays[courseID][day] == 1) {
-				this.courseDaysBelowMinimum[courseID] += 1;
-				if (this.courseDaysBelowMinimum[courseID] > 0) { // We worsened
-					deltaCountDaysBelowMin = 1;
-				}
+			if (this.coursesDays[courseID][day] == 1 && this.courseDaysBelowMinimum[courseID] >= 0) { // We worsen
+				return 1;
 			}
-			this.coursesDays[courseID][day] += -1;
 		}
-		return deltaCountDaysBelowMin;
+		return 0;
 	}
 
 	/**
 	 * Calculates the change in CurriculumCompactness.
+	 * Constant time per curriculum, as the periods taught each day are kept as a bitmask.
 	 * @param insert - Whether the operation is insert (or remove).
 	 * @param day - The day where the lecture is inserted/removed.
 	 * @param period - The period where the lecture is inserted/removed.
-	 * @param course - The course course of the lecture that is inserted/removed.
+	 * @param courseID - The course ID of the lecture that is inserted/removed.
+	 * @param vacatedPeriod - A period on the same day that should be regarded as empty (or NO_PERIOD).
 	 * @return - The change in, for each curriculum, the number of lectures not being adjacent to a course with the same curriculum.
 	 */
-	private int deltaCountCurriculumCompactness(boolean insert, int day, int period, Problem.Course course) {
-		// TODO: This is not a constant time calculation. Check how much time it uses.
-		int deltaBecomesAlone = 0;
-		Iterator<Integer> curricula = course.curricula.iterator();
-		while (curricula.hasNext()) { // for each curriculum
-			int curriculum = curricula.next();
-			boolean isAlone = true; // Assuming that curriculum is alone
-			for (int shift : new int[]{-1, 1}) {
-				int adjacentPeriod = period + shift;
-				if (this.solution.isCurriculaTaught(curriculum, day, adjacentPeriod)) {
-					// Curriculum taught by adjacent period
-					isAlone = false;
-					int adjacentAdjacentPeriod = adjacentPeriod + shift;
-					if (!this.solution.isCurriculaTaught(curriculum, day, adjacentAdjacentPeriod)) {
-						// Curriculum is NOT also taught by 2nd adjacent period
-						deltaBecomesAlone += -1;
-					}
-				}
-			}
-			if (isAlone) { // No lectures with the same curriculum in either direction
-				deltaBecomesAlone += 1;
-			}
+	private int deltaCountCurriculumCompactness(boolean insert, int day, int period, int courseID, int vacatedPeriod) {
+		long vacated = (vacatedPeriod == NO_PERIOD) ? 0 : 1L << vacatedPeriod;
+		long lecture = 1L << period;
+		int delta = 0;
+		int[] curricula = this.coursesCurricula[courseID];
+		for (int c = 0; c < curricula.length; c++) {
+			long before = this.curriculaDays[curricula[c] * this.problem.noOfDays + day] & ~vacated;
+			long after = insert ? (before | lecture) : (before & ~lecture);
+			delta += countIsolated(after) - countIsolated(before);
 		}
-		if (insert) {
-			return deltaBecomesAlone;
-		} else {
-			return -deltaBecomesAlone;
+		return delta;
+	}
+	
+	/**
+	 * Counts the lectures that are not adjacent to another lecture, i.e. the CurriculumCompactness of one curriculum and day.
+	 * @param periods - A bitmask with bit p set if the curriculum is taught in period p.
+	 * @return - The number of isolated lectures.
+	 */
+	private static int countIsolated(long periods) {
+		return Long.bitCount(periods & ~(periods << 1) & ~(periods >>> 1));
+	}
+	
+	/**
+	 * Adds to an entry in a scratch table and registers the entry as touched the first time.
+	 * @return - The new number of touched entries.
+	 */
+	private static int touch(int[] change, boolean[] isTouched, int[] touched, int noOfTouched, int index, int amount) {
+		if (!isTouched[index]) {
+			isTouched[index] = true;
+			touched[noOfTouched++] = index;
+		}
+		change[index] += amount;
+		return noOfTouched;
+	}
+	
+	/**
+	 * Makes sure that the scratch lists of deltaRelocate can hold the given number of lectures.
+	 * (Only allocates when a relocation larger than any action's is evaluated)
+	 * @param noOfLectures - The number of relocated lectures.
+	 */
+	private void ensureRelocateCapacity(int noOfLectures) {
+		if (this.touchedCourses == null || this.touchedCourses.length < noOfLectures) {
+			this.touchedCourseRooms = new int[2 * noOfLectures];
+			this.touchedCourseDays = new int[2 * noOfLectures];
+			this.touchedCourses = new int[noOfLectures];
+			this.touchedCurriculumDays = new int[2 * noOfLectures * this.maxCurriculaPerCourse];
 		}
 	}
 
@@ -264,11 +563,11 @@ public class CostCalculator {
 	 * Calculates the change in RoomCapacity.
 	 * @param insert - Whether the operation is insert (or remove).
 	 * @param room - The room where the lecture is inserted/removed.
-	 * @param course - The course of the lecture that is inserted/removed.
+	 * @param courseID - The course ID of the lecture that is inserted/removed.
 	 * @return - The change in the number of times a student must sit on the floor.
 	 */
-	private int deltaCountRoomCapacity(boolean insert, int room, Problem.Course course) {
-		int studentOverflow = Math.max(0, course.noOfStudents - problem.roomCapacity.get(room));
+	private int deltaCountRoomCapacity(boolean insert, int room, int courseID) {
+		int studentOverflow = this.problem.capacityOverflow[courseID * this.problem.noOfRooms + room];
 		if (insert) {
 			return studentOverflow;
 		} else {
@@ -0,0 +1,301 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Recomputes the cost of a solution from scratch, i.e. only from the timetable and the problem,
+ * as a cross-check of the delta-based bookkeeping in CostCalculator and Solution.
+ * The evaluation is deliberately simple (plain loops, no shared state with CostCalculator) and slow.
+ *
+ * Use it as:
+ * - validate(solution)
+ *   > throws IllegalStateException if the solution's cost or hard constraints are off (see Search.setSelfCheck).
+ * - java CostValidator [data directory] [no. of operations] [seed]
+ *   > a randomized differential check of insert/remove/swap sequences and of the actions of the searches
+ *     on every instance in the data directory (CostValidatorTest runs a short version of it under mvn test).
+ *
+ */
+public class CostValidator {
+
+	// Operations between full recomputations in the differential check
+	final static int OPERATIONS_PER_VALIDATION = 1000;
+
+	/**
+	 * Counts each penalty of the solution from scratch.
+	 * @param solution - The solution.
+	 * @return - The counts in the order of CostCalculator.PENALTY_NAMES.
+	 */
+	public static int[] computePenaltyCounts(Solution solution) {
+		Problem problem = solution.problem;
+		int countUnscheduled = 0, countRoomCapacity = 0, countRoomStability = 0, countMinimumWorkingDays = 0, countCurriculumCompactness = 0;
+
+		// Unscheduled, RoomCapacity, RoomStability, MinimumWorkingDays: per course
+		for (int courseID = 0; courseID < problem.noOfCourses; courseID++) {
+			int noOfLectures = 0;
+			boolean[] isRoomUsed = new boolean[problem.noOfRooms];
+			boolean[] isDayUsed = new boolean[problem.noOfDays];
+			for (int room = 0; room < problem.noOfRooms; room++) {
+				for (int day = 0; day < problem.noOfDays; day++) {
+					for (int period = 0; period < problem.periodsPerDay; period++) {
+						if (solution.getCourseID(room, day, period) == courseID) {
+							noOfLectures++;
+							isRoomUsed[room] = true;
+							isDayUsed[day] = true;
+							countRoomCapacity += Math.max(0, problem.courseStudents[courseID] - problem.roomCapacities[room]);
+						}
+					}
+				}
+			}
+			countUnscheduled += problem.courseLectures[courseID] - noOfLectures;
+			countRoomStability += Math.max(0, count(isRoomUsed) - 1);
+			countMinimumWorkingDays += Math.max(0, problem.courseMinWorkDays[courseID] - count(isDayUsed));
+		}
+
+		// CurriculumCompactness: a lecture of a curriculum without a lecture of the same curriculum in an adjacent period
+		for (int curriculum = 0; curriculum < problem.noOfCurricula; curriculum++) {
+			for (int day = 0; day < problem.noOfDays; day++) {
+				boolean[] isTaught = new boolean[problem.periodsPerDay];
+				for (int period = 0; period < problem.periodsPerDay; period++) {
+					for (int room = 0; room < problem.noOfRooms; room++) {
+						int courseID = solution.getCourseID(room, day, period);
+						if (courseID != Solution.EMPTY && contains(problem.courseCurricula[courseID], curriculum)) {
+							isTaught[period] = true;
+						}
+					}
+				}
+				for (int period = 0; period < problem.periodsPerDay; period++) {
+					boolean hasPrevious = period > 0 && isTaught[period - 1];
+					boolean hasNext = period < problem.periodsPerDay - 1 && isTaught[period + 1];
+					if (isTaught[period] && !hasPrevious && !hasNext) {
+						countCurriculumCompactness++;
+					}
+				}
+			}
+		}
+		return new int[] {countUnscheduled, countRoomCapacity, countRoomStability, countMinimumWorkingDays, countCurriculumCompactness};
+	}
+
+	/**
+	 * Calculates the total cost of the given penalty counts.
+	 * @param counts - The counts in the order of CostCalculator.PENALTY_NAMES.
+	 * @return - The total cost.
+	 */
+	public static int computeCost(int[] counts) {
+		return counts[0] * CostCalculator.COST_UNSCHEDULED +
+			   counts[1] * CostCalculator.COST_ROOMCAPACITY +
+			   counts[2] * CostCalculator.COST_ROOMSTABILITY +
+			   counts[3] * CostCalculator.COST_MINIMUMWORKINGDAYS +
+			   counts[4] * CostCalculator.COST_CURRICULUMCOMPACTNESS;
+	}
+
+	/**
+	 * Checks that the cost bookkeeping of the solution matches a recomputation from scratch,
+	 * and that the timetable respects the hard constraints.
+	 * @param solution - The solution.
+	 * @throws IllegalStateException - If anything does not match.
+	 */
+	public static void validate(Solution solution) {
+		Problem problem = solution.problem;
+		int[] expected = computePenaltyCounts(solution);
+		int[] actual = solution.getPenaltyCounts();
+		if (!Arrays.equals(expected, actual) || computeCost(expected) != solution.getCost()) {
+			throw new IllegalStateException("Cost bookkeeping is off: counts " + Arrays.toString(actual) + " (cost " + solution.getCost()
+					+ ") but recomputed " + Arrays.toString(expected) + " (cost " + computeCost(expected) + ")");
+		}
+		int[] placed = new int[problem.noOfCourses];
+		for (int timeslot = 0; timeslot < problem.noOfTimeslots; timeslot++) {
+			for (int room = 0; room < problem.noOfRooms; room++) {
+				int courseID = solution.getCourseID(room, timeslot);
+				if (courseID == Solution.EMPTY) {
+					continue;
+				}
+				placed[courseID]++;
+				if (problem.isUnavailable(courseID, timeslot)) {
+					throw new IllegalStateException("Course " + courseID + " is placed in unavailable timeslot " + timeslot);
+				}
+				for (int otherRoom = room + 1; otherRoom < problem.noOfRooms; otherRoom++) {
+					int otherID = solution.getCourseID(otherRoom, timeslot);
+					if (otherID != Solution.EMPTY && isConflicting(problem, courseID, otherID)) {
+						throw new IllegalStateException("Courses " + courseID + " and " + otherID + " conflict in timeslot " + timeslot);
+					}
+				}
+			}
+		}
+		for (int courseID = 0; courseID < problem.noOfCourses; courseID++) {
+			if (solution.getUnscheduled(courseID) != problem.courseLectures[courseID] - placed[courseID]) {
+				throw new IllegalStateException("Course " + courseID + " has " + solution.getUnscheduled(courseID)
+						+ " unscheduled lectures but " + placed[courseID] + " of " + problem.courseLectures[courseID] + " are placed");
+			}
+		}
+	}
+
+	/**
+	 * Randomized differential check of the delta evaluation. On every instance, random sequences of
+	 * inserts, removes, swaps, actions (MoveLecture, RoomSwap, KempeChain, RoomAssignment) and snapshot restores
+	 * are applied; the predicted delta of every operation is compared to the actual change in cost,
+	 * and the solution is validated from scratch at intervals.
+	 * @param args - The data directory (default ./TestDataUTT), the no. of operations per instance
+	 * (default 1000000) and the seed (default random).
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		File dataDirectory = new File(args.length > 0 ? args[0] : "./TestDataUTT");
+		long noOfOperations = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+		File[] instances = dataDirectory.listFiles();
+		if (instances == null) {
+			throw new IOException("No such directory: " + dataDirectory);
+		}
+		Arrays.sort(instances);
+		System.out.println("Seed " + seed + ", " + noOfOperations + " operations per instance");
+		for (File instance : instances) {
+			if (!instance.isDirectory()) {
+				continue;
+			}
+			Problem problem = new Problem(instance.getPath() + File.separator, Main.DATA_FILES);
+			long start = System.nanoTime();
+			checkInstance(problem, noOfOperations, new SplittableRandom(seed));
+			System.out.println(instance.getName() + ": OK in " + (System.nanoTime() - start) / 1000000 + " ms");
+		}
+	}
+
+	/**
+	 * Runs the differential check on a single instance.
+	 * @param problem - The problem.
+	 * @param noOfOperations - The no. of operations.
+	 * @param random - The random generator.
+	 * @throws IllegalStateException - On the first mismatch.
+	 */
+	static void checkInstance(Problem problem, long noOfOperations, SplittableRandom random) {
+		Solution solution = new Solution(problem);
+		RoomAssignment roomAssignment = new RoomAssignment(solution, random);
+		Action[] actions = { new MoveLecture(solution, random), new RoomSwap(solution, random), new KempeChain(solution, random), roomAssignment };
+		int[] fromRooms = new int[2], fromTimeslots = new int[2], toRooms = new int[2], toTimeslots = new int[2];
+		for (long operation = 1; operation <= noOfOperations; operation++) {
+			int cost = solution.getCost();
+			int delta;
+			int newCost;
+			int kind = random.nextInt(20);
+			if (kind < 7) { // insert
+				int courseID = solution.randomUnscheduledCourse(random);
+				int slot = solution.randomEmptySlot(random);
+				if (courseID == Solution.EMPTY || slot == Solution.EMPTY) {
+					continue;
+				}
+				int room = slot / problem.noOfTimeslots, timeslot = slot % problem.noOfTimeslots;
+				int day = timeslot / problem.periodsPerDay, period = timeslot % problem.periodsPerDay;
+				boolean isFeasible = solution.isTimeslotFeasible(timeslot, courseID);
+				delta = solution.deltaInsertLecture(room, day, period, courseID);
+				newCost = solution.insertLecture(room, day, period, courseID);
+				if (!isFeasible) {
+					check(newCost == Solution.INFEASIBLE && solution.getCost() == cost, "infeasible insert changed the solution", operation);
+					continue;
+				}
+			} else if (kind < 12) { // remove
+				int slot = solution.randomOccupiedSlot(random);
+				if (slot == Solution.EMPTY) {
+					continue;
+				}
+				int room = slot / problem.noOfTimeslots, timeslot = slot % problem.noOfTimeslots;
+				int day = timeslot / problem.periodsPerDay, period = timeslot % problem.periodsPerDay;
+				delta = solution.deltaRemoveLecture(room, day, period);
+				newCost = solution.removeLecture(room, day, period);
+			} else if (kind < 14) { // swap
+				int slotA = solution.randomOccupiedSlot(random);
+				int slotB = solution.randomOccupiedSlot(random);
+				if (slotA == Solution.EMPTY || slotA == slotB) {
+					continue;
+				}
+				fromRooms[0] = toRooms[1] = slotA / problem.noOfTimeslots;
+				fromTimeslots[0] = toTimeslots[1] = slotA % problem.noOfTimeslots;
+				fromRooms[1] = toRooms[0] = slotB / problem.noOfTimeslots;
+				fromTimeslots[1] = toTimeslots[0] = slotB % problem.noOfTimeslots;
+				delta = solution.deltaRelocateLectures(2, fromRooms, fromTimeslots, toRooms, toTimeslots);
+				newCost = solution.relocateLectures(2, fromRooms, fromTimeslots, toRooms, toTimeslots);
+				if (delta == Solution.INFEASIBLE) {
+					check(newCost == Solution.INFEASIBLE && solution.getCost() == cost, "infeasible swap changed the solution", operation);
+					continue;
+				}
+			} else if (kind < 18) { // action (MoveLecture evaluates with CostCalculator.deltaMove)
+				Action action = actions[random.nextInt(actions.length)];
+				String name = action.getClass().getName();
+				if (action == roomAssignment) {
+					int assigned = roomAssignment.assign(random.nextInt(problem.noOfTimeslots));
+					delta = action.evaluate(); // (an empty relocation, i.e. an optimal timeslot, evaluates as infeasible)
+					check(delta == assigned || (delta == Solution.INFEASIBLE && assigned == 0 && roomAssignment.noOfLectures == 0),
+							"room assignment predicted " + assigned + " but its relocation evaluates to " + delta, operation);
+				} else {
+					action.randomize();
+					delta = action.evaluate();
+				}
+				newCost = action.execute();
+				if (delta == Solution.INFEASIBLE) {
+					check(newCost == Solution.INFEASIBLE && solution.getCost() == cost, "infeasible " + name + " changed the solution", operation);
+					continue;
+				}
+				check(newCost == solution.getCost() && newCost - cost == delta,
+						"predicted delta " + delta + " but the cost changed from " + cost + " to " + newCost + " (" + name + ")", operation);
+				if (random.nextBoolean()) {
+					check(action.revert() == cost && solution.getCost() == cost, "reverting " + name + " did not restore cost " + cost, operation);
+				}
+				if (operation % OPERATIONS_PER_VALIDATION == 0) {
+					validate(solution);
+				}
+				continue;
+			} else { // snapshot
+				if (random.nextBoolean()) {
+					solution.saveSnapshot();
+				} else {
+					solution.restoreSnapshot();
+					validate(solution);
+				}
+				continue;
+			}
+			check(newCost != Solution.INFEASIBLE, "feasible operation " + kind + " was rejected", operation);
+			check(newCost == solution.getCost() && newCost - cost == delta,
+					"predicted delta " + delta + " but the cost changed from " + cost + " to " + newCost + " (operation " + kind + ")", operation);
+			if (operation % OPERATIONS_PER_VALIDATION == 0) {
+				validate(solution);
+			}
+		}
+		validate(solution);
+	}
+
+	private static void check(boolean condition, String message, long operation) {
+		if (!condition) {
+			throw new IllegalStateException("Operation " + operation + ": " + message);
+		}
+	}
+
+	private static boolean isConflicting(Problem problem, int courseA, int courseB) {
+		if (courseA == courseB || problem.courseLecturer[courseA] == problem.courseLecturer[courseB]) {
+			return true;
+		}
+		for (int curriculum : problem.courseCurricula[courseA]) {
+			if (contains(problem.courseCurricula[courseB], curriculum)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean contains(int[] values, int value) {
+		for (int v : values) {
+			if (v == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int count(boolean[] values) {
+		int count = 0;
+		for (boolean value : values) {
+			if (value) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,62 @@
+import java.util.SplittableRandom;
+
+/**
+ * Represents a Kempe chain interchange between two timeslots.
+ * Starting from a random lecture, the chain contains every lecture in the two timeslots that is (transitively)
+ * in conflict with it (same lecturer or a common curriculum). All lectures of the chain switch timeslot
+ * and keep their room, so no new lecturer or curriculum conflicts are created.
+ *
+ */
+public class KempeChain extends RelocationAction {
+
+	private boolean[] isInChain;		// side * noOfRooms + room (side 0 = first timeslot, side 1 = second timeslot) -> part of the chain?
+	
+	/*
+	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
+	 */
+	public KempeChain(Solution solution, SplittableRandom randomGenerator) {
+		super(solution, randomGenerator, 2 * solution.problem.noOfRooms);
+		this.isInChain = new boolean[2 * solution.problem.noOfRooms];
+		randomize();
+	}
+	
+	/*
+	 * Draws a new random Kempe chain.
+	 */
+	public void randomize() {
+		this.noOfLectures = 0;
+		int noOfRooms = solution.problem.noOfRooms;
+		int noOfTimeslots = solution.problem.noOfTimeslots;
+		int slot = solution.randomOccupiedSlot(randomGenerator);
+		if (slot == Solution.EMPTY || noOfTimeslots < 2) {
+			return;
+		}
+		int room = slot / noOfTimeslots;
+		int timeslotA = slot % noOfTimeslots;
+		int timeslotB = randomGenerator.nextInt(noOfTimeslots - 1);
+		if (timeslotB >= timeslotA) {
+			timeslotB++; // any other timeslot
+		}
+		// Breadth first search: the relocation arrays double as the queue
+		add(room, timeslotA, room, timeslotB);
+		this.isInChain[room] = true;
+		for (int i = 0; i < this.noOfLectures; i++) {
+			int courseID = solution.getCourseID(this.fromRooms[i], this.fromTimeslots[i]);
+			int otherTimeslot = this.toTimeslots[i];
+			int otherSide = (otherTimeslot == timeslotA) ? 0 : noOfRooms;
+			for (int r = 0; r < noOfRooms; r++) {
+				int otherCourseID = solution.getCourseID(r, otherTimeslot);
+				if (!this.isInChain[otherSide + r] && otherCourseID != Solution.EMPTY && solution.isConflicting(courseID, otherCourseID)) {
+					this.isInChain[otherSide + r] = true;
+					add(r, otherTimeslot, r, this.fromTimeslots[i]);
+				}
+			}
+		}
+		for (int i = 0; i < this.noOfLectures; i++) {
+			int side = (this.fromTimeslots[i] == timeslotA) ? 0 : noOfRooms;
+			this.isInChain[side + this.fromRooms[i]] = false;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Late acceptance hill climbing: an action is accepted if the new cost is no worse than the current cost
+ * or than the cost the search had historyLength iterations ago.
+ * The history used shrinks linearly with the time that remains until the deadline, so the search
+ * turns into a plain hill climber towards the end.
+ *
+ */
+public class LateAcceptanceSearch extends Search {
+
+	// Iterations between updates of the history length (reading the clock is not free)
+	final static int ITERATIONS_PER_UPDATE = 1000;
+	
+	private Solution solution;
+	private Action[] neighbourhoods;	// one reusable action per neighbourhood
+	private int cost;
+	private int bestCost;				// cost of the snapshot kept in the solution
+	private long countStep;
+	private long startTime;
+	private long deadline;
+	private int[] history;				// cost of the solution in earlier iterations
+	private int historyLength;			// part of the history currently in use
+	
+	/**
+	 * Constructor.
+	 * @param initialSolution - The solution to start from.
+	 * @param outputInfo - Whether to print improvements.
+	 * @param random - The random generator of the search.
+	 * @param deadline - The System.nanoTime() where the search will be stopped.
+	 * @param maxHistoryLength - The length of the history at the start of the search.
+	 */
+	public LateAcceptanceSearch(Solution initialSolution, boolean outputInfo, SplittableRandom random, long deadline, int maxHistoryLength) {
+		super(outputInfo, random);
+		this.solution = initialSolution;
+		// Late acceptance gains from the optimal room assignments (unlike the simple search and annealing, which lose from them)
+		this.neighbourhoods = createNeighbourhoods(initialSolution, true);
+		this.cost = initialSolution.getCost();
+		this.bestCost = this.cost;
+		initialSolution.saveSnapshot();
+		this.startTime = System.nanoTime();
+		this.deadline = deadline;
+		this.history = new int[maxHistoryLength];
+		Arrays.fill(this.history, this.cost);
+		this.historyLength = maxHistoryLength;
+		output("Initial cost: " + this.cost);
+	}
+	
+	public void iterate() {
+		if (++this.countStep % ITERATIONS_PER_UPDATE == 0) {
+			updateHistoryLength();
+		}
+		int v = (int) (this.countStep % this.historyLength);
+		Action action = randomAction(this.neighbourhoods);
+		int delta = action.evaluate();
+		if (delta == Solution.INFEASIBLE) {
+			countIteration(delta, false);
+		} else {
+			int newCost = this.cost + delta;
+			boolean isAccepted = delta <= 0 || newCost <= this.history[v];
+			countIteration(delta, isAccepted);
+			if (isAccepted) {
+				this.cost = action.execute();
+				if (this.cost < this.bestCost) {
+					this.bestCost = this.cost;
+					this.solution.saveSnapshot();
+					recordBest(this.solution);
+					if (shouldOutputInfo()) {
+						output("Step " + this.countStep + ": Improving to " + this.cost + " (history " + this.historyLength + ")");
+					}
+				}
+			}
+		}
+		this.history[v] = this.cost;
+	}
+	
+	public Solution getBestSolution() {
+		if (this.cost != this.bestCost) {
+			this.solution.restoreSnapshot();
+			this.cost = this.solution.getCost();
+		}
+		return this.solution;
+	}
+	
+	public int getBestCost() {
+		return this.bestCost;
+	}
+	
+	/**
+	 * Sets the history length according to how much of the time until the deadline (or of the iteration budget) has passed.
+	 */
+	private void updateHistoryLength() {
+		double progress = getProgress(this.startTime, this.deadline);
+		this.historyLength = Math.max(1, (int) (this.history.length * (1 - progress)));
+	}
+	
+}
@@ -1,13 +1,71 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Main {
 
 	final static String LOCAL_TEST_NO = "01";
+	final static String[] DATA_FILES = {"basic.utt", "courses.utt", "lecturers.utt", "rooms.utt", "curricula.utt", "relation.utt", "unavailability.utt"};
+	final static int LATE_ACCEPTANCE_HISTORY = 5000;
+	final static int TELEMETRY_INTERVAL = 250;	// milliseconds between telemetry samples
+	final static int CHECKPOINT_INTERVAL = 1000;	// milliseconds between checkpoints of the best solution
 	static String dataLocation = "";
 	static int timeLimit = 60;
+	static int noOfThreads = 1;
+	static String searchType = "simple";
+	static String parallelType = "portfolio";
+	static String cacheMode = "off";
+	static String initialType = "greedy";
+	static String telemetryPrefix = null;
+	static int checkInterval = 0;
+	static int descentTime = 0;
+	static String checkpointFile = null;
+	static String batchPath = null;
+	static String outputDirectory = "batch-results";
+	static long seed = new SplittableRandom().nextLong();
+	static long iterations = 0;
 	static boolean local = false;
 	
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
+    	
+    	// Options (-name=value) may be given anywhere:
+    	//   -threads=<no. of parallel searches>
+    	//   -search=simple|annealing|lateacceptance|alns|tabu
+    	//   -parallel=portfolio|tempering (with more than one thread: independent searches or replica exchange)
+    	//   -cache=off|on|rebuild (binary problem cache next to the data files)
+    	//   -initial=greedy|empty (start from a constructed or an empty timetable)
+    	//   -telemetry=<prefix> (write the search telemetry to <prefix>.csv and <prefix>.json)
+    	//   -check=<iterations> (debug: validate the cost from scratch every given no. of iterations)
+    	//   -checkpoint=<file> (dump the best solution so far to the file every second)
+    	//   -batch=<directory or glob> (solve all instances found there, -threads at a time, timeLimit seconds each)
+    	//   -output=<directory> (where batch mode writes the solutions and summary.csv)
+    	//   -seed=<number> (seed of all random generators, a random seed is used if not given)
+    	//   -descent=<seconds> (end with a parallel steepest descent, given the last seconds of timeLimit)
+    	//   -iterations=<no. per search> (run a fixed no. of iterations instead of timeLimit, reproducible with -seed)
+    	args = parseOptions(args);
+    	
+    	// RUN BATCH (timeLimit per instance may be given as argument)
+    	if (batchPath != null) {
+    		if (args.length == 1) {
+    			timeLimit = Integer.parseInt(args[0]);
+    		}
+    		List<Path> instances = BatchSolver.findInstances(batchPath);
+    		System.out.println("Solving " + instances.size() + " instance(s) for " + timeLimit + " seconds each, " + noOfThreads + " at a time...");
+    		BatchSolver batchSolver = new BatchSolver(instances, noOfThreads, timeLimit, Paths.get(outputDirectory));
+    		batchSolver.setSeed(seed);
+    		batchSolver.setIterations(iterations);
+    		batchSolver.run(System.out);
+    		return;
+    	}
     	
     	// RUN LOCAL (no arguments, or timeLimit given as argument)
     	if (args.length == 1) {
@@ -15,38 +73,282 @@ public class Main {
 		}
     	if (args.length <= 1) {
     		local = true;
-    		args = new String[]{"basic.utt", "courses.utt", "lecturers.utt", "rooms.utt", "curricula.utt", "relation.utt", "unavailability.utt"};
+    		args = DATA_FILES;
     		dataLocation = "./TestDataUTT/Test" + LOCAL_TEST_NO + "/";
     	}
     	
     	// Load and show problem
     	localPrint("\n********\nPROBLEM:\n********");
-        Problem problemInstance = new Problem(dataLocation, args);
+        Problem problemInstance;
+        if (noOfThreads > 1) {
+        	ExecutorService loader = Executors.newFixedThreadPool(noOfThreads);
+        	try {
+        		problemInstance = loadProblem(dataLocation, args, loader);
+        	} finally {
+        		loader.shutdown();
+        	}
+        } else {
+        	problemInstance = loadProblem(dataLocation, args);
+        }
         localPrint(problemInstance);
         
+        // Construct initial solution (within the time limit)
+        long startTime = System.nanoTime();
+        Solution initialSolution = createInitialSolution(problemInstance);
+        localPrint("Initial solution: cost " + initialSolution.getCost() + " in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+        
         // Perform search
         localPrint("\n*******\nSEARCH:\n*******");
-        localPrint("Running for " + timeLimit + " seconds...");
-        long startTime = System.nanoTime();
-        long currentTime = System.nanoTime();
-        Search search = new SimpleSearch(new Solution(problemInstance), local);
-        while ((currentTime - startTime)/1e9 < timeLimit) {
-        	search.iterate();
-        	currentTime = System.nanoTime();
+        if (iterations > 0) {
+        	localPrint("Running " + iterations + " iterations per search on " + noOfThreads + " thread(s) with seed " + seed + "...");
+        } else {
+        	localPrint("Running for " + timeLimit + " seconds on " + noOfThreads + " thread(s) with seed " + seed + "...");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Solution bestSolution;
+        final long deadline = startTime + (timeLimit - descentTime) * 1000000000L;
+        TelemetryReporter reporter = null;
+        if (telemetryPrefix != null) {
+        	reporter = new TelemetryReporter(TELEMETRY_INTERVAL);
+        	reporter.start();
+        }
+        CheckpointWriter checkpointWriter = null;
+        if (checkpointFile != null) {
+        	checkpointWriter = new CheckpointWriter(Paths.get(checkpointFile), CHECKPOINT_INTERVAL);
+        	checkpointWriter.offer(new Solution(initialSolution));
+        	checkpointWriter.start();
+        }
+        if (noOfThreads > 1 && parallelType.equals("tempering")) {
+        	ParallelTempering parallelTempering = new ParallelTempering(initialSolution, noOfThreads);
+        	parallelTempering.setReporter(reporter);
+        	parallelTempering.setCheckpointWriter(checkpointWriter);
+        	parallelTempering.setSeed(random.nextLong());
+        	if (iterations > 0) {
+        		bestSolution = parallelTempering.runDeterministic(iterations);
+        	} else {
+        		bestSolution = parallelTempering.run((deadline - System.nanoTime()) / 1e9);
+        	}
+        	localPrint("Iterations: " + parallelTempering.getTotalIterations() + ", exchanges: "
+        			+ parallelTempering.getExchangesAccepted() + "/" + parallelTempering.getExchangesTried());
+        } else if (noOfThreads > 1) {
+        	ParallelSearch parallelSearch = new ParallelSearch(initialSolution, noOfThreads, new ParallelSearch.SearchFactory() {
+        		public Search create(Solution initialSolution, SplittableRandom random) {
+        			return createSearch(initialSolution, random, deadline, false);
+        		}
+        	});
+        	parallelSearch.setReporter(reporter);
+        	parallelSearch.setCheckpointWriter(checkpointWriter);
+        	parallelSearch.setSeed(random.nextLong());
+        	if (iterations > 0) {
+        		bestSolution = parallelSearch.runDeterministic(iterations);
+        	} else {
+        		bestSolution = parallelSearch.run((deadline - System.nanoTime()) / 1e9);
+        	}
+        	localPrint("Iterations: " + parallelSearch.getTotalIterations() + " (" + parallelSearch.getTotalWastedIterations() + " wasted)"
+        			+ ", restarts: " + parallelSearch.getTotalRestarts());
+        } else {
+	        long currentTime = System.nanoTime();
+	        Search search = createSearch(initialSolution, random.split(), deadline, local);
+	        if (iterations > 0) {
+	        	search.setIterationBudget(iterations);
+	        }
+	        if (reporter != null) {
+	        	search.setTelemetry(reporter.register("search"));
+	        	search.getTelemetry().recordBest(initialSolution);
+	        }
+	        long nextCheckpoint = currentTime + CHECKPOINT_INTERVAL * 1000000L;
+	        long iteration = 0;
+	        while (iterations > 0 ? iteration++ < iterations : (currentTime - startTime)/1e9 < timeLimit - descentTime) {
+	        	search.iterate();
+	        	currentTime = System.nanoTime();
+	        	if (checkpointWriter != null && currentTime >= nextCheckpoint) {
+	        		// The search works on initialSolution in place and keeps its best as the snapshot
+	        		if (search.getBestCost() < checkpointWriter.getLatestCost()) {
+	        			checkpointWriter.offer(initialSolution.copySnapshot());
+	        		}
+	        		nextCheckpoint = currentTime + CHECKPOINT_INTERVAL * 1000000L;
+	        	}
+	        }
+	        localPrint("Iterations: " + (search.getUsefulIterations() + search.getWastedIterations()) + " (" + search.getWastedIterations() + " wasted)");
+	        bestSolution = search.getBestSolution();
+        }
+        if (descentTime > 0) {
+        	// The best solution may already be held by the checkpoint writer, so the descent works on a copy
+        	bestSolution = new Solution(bestSolution);
+        	long descentStart = System.nanoTime();
+        	SteepestDescent steepestDescent = new SteepestDescent(noOfThreads);
+        	steepestDescent.descend(bestSolution, iterations > 0 ? Long.MAX_VALUE : startTime + timeLimit * 1000000000L);
+        	steepestDescent.shutdown();
+        	localPrint("Steepest descent: " + steepestDescent.getSteps() + " steps to " + bestSolution.getCost() + " (" + steepestDescent.getEvaluatedMoves()
+        			+ " moves evaluated in " + (System.nanoTime() - descentStart) / 1000000 + " ms)");
+        }
+        if (checkpointWriter != null) {
+        	checkpointWriter.offer(bestSolution);
+        	checkpointWriter.stop();
+        }
+        if (reporter != null) {
+        	reporter.stop();
+        	writeTelemetry(reporter, telemetryPrefix);
         }
         
         // Show final solution
         localPrint("\n***************\nFINAL SCHEDULE:\n***************");
-        localPrint(search.getBestSolution());
+        localPrint(bestSolution);
         
         // Output for CodeJudge
         localPrint("\n*****************\nCODEJUDGE OUTPUT:\n*****************");
-        System.out.println(search.getBestSolution().codeJudgeOutput());
-        System.out.println(search.getBestSolution().getCost());
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+        new SolutionWriter(output).writeCodeJudge(bestSolution);
+        output.write("\n" + bestSolution.getCost() + "\n");
+        output.flush();
         
         localPrint("Great Success!");
     }
     
+    /**
+     * Creates a search of the type selected with -search.
+     * @param initialSolution - The solution to start from.
+     * @param random - The random generator of the search.
+     * @param deadline - The System.nanoTime() where the search will be stopped.
+     * @param outputInfo - Whether the search should print improvements.
+     * @return - The search.
+     */
+    static Search createSearch(Solution initialSolution, SplittableRandom random, long deadline, boolean outputInfo) {
+    	Search search;
+    	switch (searchType) {
+    	case "annealing":
+    		search = new SimulatedAnnealingSearch(initialSolution, outputInfo, random, deadline);
+    		break;
+    	case "lateacceptance":
+    		search = new LateAcceptanceSearch(initialSolution, outputInfo, random, deadline, LATE_ACCEPTANCE_HISTORY);
+    		break;
+    	case "alns":
+    		search = new AdaptiveLargeNeighbourhoodSearch(initialSolution, outputInfo, random, deadline);
+    		break;
+    	case "tabu":
+    		search = new TabuSearch(initialSolution, outputInfo, random);
+    		break;
+    	default:
+    		search = new SimpleSearch(initialSolution, outputInfo, random);
+    	}
+    	search.setSelfCheck(checkInterval);
+    	return search;
+    }
+    
+    /**
+     * Creates the solution that the search starts from according to -initial.
+     * @param problem - The problem.
+     * @return - The initial solution.
+     */
+    static Solution createInitialSolution(Problem problem) {
+    	Solution solution = new Solution(problem);
+    	switch (initialType) {
+    	case "greedy":
+    		Construction.construct(solution);
+    		solution.saveSnapshot();
+    		return solution;
+    	case "empty":
+    		return solution;
+    	default:
+    		throw new IllegalArgumentException("Unknown initial solution: " + initialType);
+    	}
+    }
+    
+    /**
+     * Loads the problem according to -cache.
+     * @param dataLocation - The path where the problem data files are located.
+     * @param files - The names of the data files.
+     * @return - The problem.
+     * @throws IOException
+     */
+    static Problem loadProblem(String dataLocation, String[] files) throws IOException {
+    	return loadProblem(dataLocation, files, null);
+    }
+    
+    /**
+     * Loads the problem according to -cache, parsing the data files in parallel.
+     * @param dataLocation - The path where the problem data files are located.
+     * @param files - The names of the data files.
+     * @param executor - Executor used for parsing the files concurrently (or null to parse them one by one).
+     * @return - The problem.
+     * @throws IOException
+     */
+    static Problem loadProblem(String dataLocation, String[] files, ExecutorService executor) throws IOException {
+    	switch (cacheMode) {
+    	case "on":
+    		return ProblemCache.load(dataLocation, files, false, executor);
+    	case "rebuild":
+    		return ProblemCache.load(dataLocation, files, true, executor);
+    	case "off":
+    		return new Problem(dataLocation, files, executor);
+    	default:
+    		throw new IllegalArgumentException("Unknown cache mode: " + cacheMode);
+    	}
+    }
+    
+    /**
+     * Writes the telemetry timeline as CSV and JSON.
+     * @param reporter - The (stopped) reporter.
+     * @param prefix - The path of the files without extension.
+     * @throws IOException
+     */
+    static void writeTelemetry(TelemetryReporter reporter, String prefix) throws IOException {
+    	try (Writer writer = new FileWriter(prefix + ".csv")) {
+    		reporter.writeCsv(writer);
+    	}
+    	try (Writer writer = new FileWriter(prefix + ".json")) {
+    		reporter.writeJson(writer);
+    	}
+    	localPrint("Telemetry written to " + prefix + ".csv and " + prefix + ".json");
+    }
+    
+    /**
+     * Reads the options (-name=value) and removes them from the arguments.
+     * @param args - The command line arguments.
+     * @return - The remaining (positional) arguments.
+     */
+    static private String[] parseOptions(String[] args) {
+    	List<String> positional = new ArrayList<String>();
+    	for (String arg : args) {
+    		if (!arg.startsWith("-") || arg.indexOf('=') < 0) {
+    			positional.add(arg);
+    			continue;
+    		}
+    		String name = arg.substring(1, arg.indexOf('='));
+    		String value = arg.substring(arg.indexOf('=') + 1);
+    		if (name.equals("threads")) {
+    			noOfThreads = Integer.parseInt(value);
+    		} else if (name.equals("search")) {
+    			searchType = value;
+    		} else if (name.equals("parallel")) {
+    			parallelType = value;
+    		} else if (name.equals("cache")) {
+    			cacheMode = value;
+    		} else if (name.equals("initial")) {
+    			initialType = value;
+    		} else if (name.equals("telemetry")) {
+    			telemetryPrefix = value;
+    		} else if (name.equals("batch")) {
+    			batchPath = value;
+    		} else if (name.equals("output")) {
+    			outputDirectory = value;
+    		} else if (name.equals("seed")) {
+    			seed = Long.parseLong(value);
+    		} else if (name.equals("iterations")) {
+    			iterations = Long.parseLong(value);
+    		} else if (name.equals("checkpoint")) {
+    			checkpointFile = value;
+    		} else if (name.equals("check")) {
+    			checkInterval = Integer.parseInt(value);
+    		} else if (name.equals("descent")) {
+    			descentTime = Integer.parseInt(value);
+    		} else {
+    			throw new IllegalArgumentException("Unknown option: " + arg);
+    		}
+    	}
+    	return positional.toArray(new String[positional.size()]);
+    }
+    
     static private void localPrint(Object obj) {
     	if (local) {
     		System.out.println(obj);
@@ -0,0 +1,85 @@
+import java.util.SplittableRandom;
+
+/**
+ * Represents moving a random scheduled lecture to a random free slot (another room and/or timeslot).
+ *
+ */
+public class MoveLecture implements Action {
+
+	// No. of target slots drawn before settling for an infeasible one
+	final static int MAX_TARGET_TRIES = 10;
+	
+	private int fromRoom;
+	private int fromDay;
+	private int fromPeriod;
+	private int toRoom;
+	private int toDay;
+	private int toPeriod;
+	private SplittableRandom randomGenerator;
+	private Solution solution;
+	
+	/*
+	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
+	 */
+	public MoveLecture(Solution solution, SplittableRandom randomGenerator) {
+		this.randomGenerator = randomGenerator;
+		this.solution = solution;
+		randomize();
+	}
+	
+	/*
+	 * Draws a new random move of a scheduled lecture to an empty slot.
+	 * The target is redrawn (a bounded no. of times) until the lecture can be taught there.
+	 */
+	public void randomize() {
+		int noOfTimeslots = solution.problem.noOfTimeslots;
+		int periodsPerDay = solution.problem.periodsPerDay;
+		int fromSlot = solution.randomOccupiedSlot(randomGenerator);
+		int toSlot = solution.randomEmptySlot(randomGenerator);
+		if (fromSlot == Solution.EMPTY || toSlot == Solution.EMPTY) {
+			fromSlot = 0; // nothing to move (the move is infeasible)
+			toSlot = 0;
+		} else {
+			int courseID = solution.getCourseID(fromSlot / noOfTimeslots, fromSlot % noOfTimeslots);
+			for (int tries = 1; tries < MAX_TARGET_TRIES; tries++) {
+				int toTimeslot = toSlot % noOfTimeslots;
+				if (toTimeslot == fromSlot % noOfTimeslots || solution.isTimeslotFeasible(toTimeslot, courseID)) {
+					break; // (the lecture itself is the only conflict in its own timeslot)
+				}
+				toSlot = solution.randomEmptySlot(randomGenerator);
+			}
+		}
+		this.fromRoom = fromSlot / noOfTimeslots;
+		this.fromDay = (fromSlot % noOfTimeslots) / periodsPerDay;
+		this.fromPeriod = (fromSlot % noOfTimeslots) % periodsPerDay;
+		this.toRoom = toSlot / noOfTimeslots;
+		this.toDay = (toSlot % noOfTimeslots) / periodsPerDay;
+		this.toPeriod = (toSlot % noOfTimeslots) % periodsPerDay;
+	}
+	
+	/*
+	 * Calculates the change in cost of the move without changing the solution.
+	 * @return - The change in total cost OR Solution.INFEASIBLE if the move is infeasible.
+	 */
+	public int evaluate() {
+		return solution.deltaMoveLecture(fromRoom, fromDay, fromPeriod, toRoom, toDay, toPeriod);
+	}
+	
+	/*
+	 * Tries to execute the move.
+	 * @return - The total cost after the move OR Solution.INFEASIBLE if no change was made.
+	 */
+	public int execute() {
+		return solution.moveLecture(fromRoom, fromDay, fromPeriod, toRoom, toDay, toPeriod);
+	}
+	
+	/*
+	 * Tries to revert the move.
+	 * @return - The total cost after the move OR Solution.INFEASIBLE if no change was made.
+	 */
+	public int revert() {
+		return solution.moveLecture(toRoom, toDay, toPeriod, fromRoom, fromDay, fromPeriod);
+	}
+}
@@ -0,0 +1,335 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a portfolio of independent searches, one per thread, on their own copy of the solution.
+ * The workers publish their best solution to a shared lock-free holder, and a worker that has not
+ * improved for a while restarts from the global best.
+ *
+ */
+public class ParallelSearch {
+	
+	/**
+	 * Creates the search that a worker runs.
+	 */
+	public interface SearchFactory {
+		public Search create(Solution initialSolution, SplittableRandom random);
+	}
+	
+	// Iterations between checking the shared best
+	final static int ITERATIONS_PER_ROUND = 10000;
+	// Iterations between checking the time within a round (a round of tabu search or ALNS can take more than a second)
+	final static int ITERATIONS_PER_TIME_CHECK = 64;
+	// Rounds without own improvements before a worker restarts from the global best
+	final static int MAX_STALLED_ROUNDS = 100;
+	
+	private Solution initialSolution;
+	private int noOfThreads;
+	private SearchFactory searchFactory;
+	private SplittableRandom random;
+	private TelemetryReporter reporter;	// optional, each worker registers its own telemetry
+	private CheckpointWriter checkpointWriter;	// optional, is offered every new global best
+	// Only used when the workers run in lockstep (runDeterministic)
+	private CyclicBarrier barrier;
+	private Solution[] workerBests;		// worker no.	-> a copy of its best solution if it improved in the current round
+	// Shared between workers (the published solutions are never changed again)
+	private AtomicReference<Solution> bestSolution = new AtomicReference<Solution>();
+	private AtomicLong totalIterations = new AtomicLong();
+	private AtomicLong totalRestarts = new AtomicLong();
+	private AtomicLong totalWastedIterations = new AtomicLong();
+	
+	/**
+	 * Constructor.
+	 * @param problem - The problem to solve.
+	 * @param noOfThreads - The number of workers.
+	 * @param searchFactory - Creates the search that each worker runs.
+	 */
+	public ParallelSearch(Problem problem, int noOfThreads, SearchFactory searchFactory) {
+		this(new Solution(problem), noOfThreads, searchFactory);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param initialSolution - The solution that every worker starts from a copy of (it is not changed).
+	 * @param noOfThreads - The number of workers.
+	 * @param searchFactory - Creates the search that each worker runs.
+	 */
+	public ParallelSearch(Solution initialSolution, int noOfThreads, SearchFactory searchFactory) {
+		this.initialSolution = initialSolution;
+		this.noOfThreads = noOfThreads;
+		this.searchFactory = searchFactory;
+		this.random = new SplittableRandom();
+	}
+	
+	/**
+	 * Lets the workers count their iterations, improvements and restarts in the telemetry of a reporter.
+	 * @param reporter - The reporter (started and stopped by the caller).
+	 */
+	public void setReporter(TelemetryReporter reporter) {
+		this.reporter = reporter;
+	}
+	
+	/**
+	 * Lets the workers offer every new global best to a checkpoint writer.
+	 * @param checkpointWriter - The checkpoint writer (started and stopped by the caller).
+	 */
+	public void setCheckpointWriter(CheckpointWriter checkpointWriter) {
+		this.checkpointWriter = checkpointWriter;
+	}
+	
+	/**
+	 * Sets the seed that the random generators of the workers are split from.
+	 * Together with runDeterministic this makes runs reproducible.
+	 * @param seed - The seed.
+	 */
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Runs all workers until the time limit is reached.
+	 * @param timeLimit - The time limit in seconds.
+	 * @return - The best solution found by any worker.
+	 * @throws InterruptedException
+	 */
+	public Solution run(double timeLimit) throws InterruptedException {
+		return runWorkers(System.nanoTime() + (long) (timeLimit * 1e9), 0);
+	}
+	
+	/**
+	 * Runs all workers for a fixed no. of iterations in lockstep: after every round the workers wait for
+	 * each other and the global best is chosen among their bests (lowest cost, then lowest worker no.).
+	 * The result then only depends on the seed and the no. of workers, not on the timing of the threads.
+	 * The searches measure their progress in iterations (see Search.setIterationBudget).
+	 * @param iterationsPerWorker - The no. of iterations of each worker (rounded up to whole rounds).
+	 * @return - The best solution found by any worker.
+	 * @throws InterruptedException
+	 */
+	public Solution runDeterministic(long iterationsPerWorker) throws InterruptedException {
+		long noOfRounds = Math.max(1, (iterationsPerWorker + ITERATIONS_PER_ROUND - 1) / ITERATIONS_PER_ROUND);
+		this.workerBests = new Solution[this.noOfThreads];
+		this.barrier = new CyclicBarrier(this.noOfThreads, new Runnable() {
+			public void run() {
+				selectBest();
+			}
+		});
+		publish(new Solution(this.initialSolution));
+		return runWorkers(Long.MAX_VALUE, noOfRounds);
+	}
+	
+	/**
+	 * Starts the workers and waits for them to finish.
+	 * @param deadline - The System.nanoTime() where the workers should stop (if they are not run in lockstep).
+	 * @param noOfRounds - The no. of rounds to run in lockstep, or 0 to run until the deadline.
+	 * @return - The best solution found by any worker.
+	 * @throws InterruptedException
+	 */
+	private Solution runWorkers(final long deadline, final long noOfRounds) throws InterruptedException {
+		Thread[] workers = new Thread[this.noOfThreads];
+		for (int i = 0; i < this.noOfThreads; i++) {
+			final SplittableRandom workerRandom = this.random.split();
+			final int index = i;
+			final String name = "search-worker-" + i;
+			workers[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						work(deadline, noOfRounds, workerRandom, index, name);
+					} catch (RuntimeException | Error e) {
+						if (barrier != null) {
+							barrier.reset(); // releases the workers waiting for this one
+						}
+						throw e;
+					}
+				}
+			}, name);
+			workers[i].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		return this.bestSolution.get();
+	}
+	
+	/**
+	 * Gets the total number of iterations performed by all workers.
+	 * @return - The total number of iterations.
+	 */
+	public long getTotalIterations() {
+		return this.totalIterations.get();
+	}
+	
+	/**
+	 * Gets the total number of iterations where the drawn action was infeasible or had no effect.
+	 * @return - The total number of wasted iterations.
+	 */
+	public long getTotalWastedIterations() {
+		return this.totalWastedIterations.get();
+	}
+	
+	/**
+	 * Gets the total number of times a worker restarted from the global best.
+	 * @return - The total number of restarts.
+	 */
+	public long getTotalRestarts() {
+		return this.totalRestarts.get();
+	}
+	
+	/**
+	 * The loop of a single worker.
+	 * The best solution of the search is only handed on as a copy of the snapshot (Solution.copySnapshot), as
+	 * Search.getBestSolution would reset the working solution of the search to its best.
+	 * @param deadline - The System.nanoTime() where the worker should stop (if it is not run in lockstep).
+	 * @param noOfRounds - The no. of rounds to run in lockstep with the other workers, or 0 to run until the deadline.
+	 * @param workerRandom - The random generator of the worker.
+	 * @param index - The no. of the worker.
+	 * @param name - The name of the worker.
+	 */
+	private void work(long deadline, long noOfRounds, SplittableRandom workerRandom, int index, String name) {
+		boolean isDeterministic = noOfRounds > 0;
+		long iterationBudget = noOfRounds * ITERATIONS_PER_ROUND;
+		Solution solution = new Solution(this.initialSolution);
+		Search search = this.searchFactory.create(solution, workerRandom.split());
+		if (isDeterministic) {
+			search.setIterationBudget(iterationBudget);
+		}
+		Telemetry telemetry = this.reporter == null ? null : this.reporter.register(name);
+		if (telemetry != null) {
+			search.setTelemetry(telemetry);
+			telemetry.recordBest(solution);
+		}
+		int ownBestCost = search.getBestCost();
+		if (!isDeterministic) {
+			publish(new Solution(solution));
+		}
+		int stalledRounds = 0;
+		long iterations = 0;
+		while (isDeterministic ? iterations < iterationBudget : System.nanoTime() < deadline) {
+			iterations += isDeterministic ? iterateRound(search) : iterateRound(search, deadline);
+			int cost = search.getBestCost();
+			boolean isImproved = cost < ownBestCost;
+			if (isImproved) {
+				ownBestCost = cost;
+				stalledRounds = 0;
+				if (isDeterministic) {
+					this.workerBests[index] = solution.copySnapshot();
+				} else if (isBetterThanPublished(cost)) {
+					publish(solution.copySnapshot());
+				}
+			}
+			if (isDeterministic && !awaitRound()) {
+				break;
+			}
+			if (!isImproved && ++stalledRounds > MAX_STALLED_ROUNDS) {
+				Solution globalBest = this.bestSolution.get();
+				if (globalBest != null && globalBest.getCost() < cost) {
+					this.totalWastedIterations.addAndGet(search.getWastedIterations());
+					solution = new Solution(globalBest);
+					search = this.searchFactory.create(solution, workerRandom.split());
+					if (isDeterministic) {
+						search.setIterationBudget(iterationBudget - iterations);
+					}
+					if (telemetry != null) {
+						search.setTelemetry(telemetry);
+						telemetry.recordRestart(cost, globalBest.getCost());
+					}
+					ownBestCost = globalBest.getCost();
+					this.totalRestarts.incrementAndGet();
+				}
+				stalledRounds = 0;
+			}
+		}
+		this.totalIterations.addAndGet(iterations);
+		this.totalWastedIterations.addAndGet(search.getWastedIterations());
+	}
+	
+	/**
+	 * Runs a whole round of iterations (in lockstep mode).
+	 * @param search - The search of the worker.
+	 * @return - The no. of iterations.
+	 */
+	private static int iterateRound(Search search) {
+		for (int i = 0; i < ITERATIONS_PER_ROUND; i++) {
+			search.iterate();
+		}
+		return ITERATIONS_PER_ROUND;
+	}
+	
+	/**
+	 * Runs a round of iterations, but stops early when the deadline is reached.
+	 * @param search - The search of the worker.
+	 * @param deadline - The System.nanoTime() where the worker should stop.
+	 * @return - The no. of iterations.
+	 */
+	private static int iterateRound(Search search, long deadline) {
+		for (int i = 0; i < ITERATIONS_PER_ROUND; i++) {
+			if (i % ITERATIONS_PER_TIME_CHECK == 0 && System.nanoTime() >= deadline) {
+				return i;
+			}
+			search.iterate();
+		}
+		return ITERATIONS_PER_ROUND;
+	}
+	
+	/**
+	 * Waits until all workers have finished the round (in lockstep mode).
+	 * @return - Whether the worker should continue (false if the wait was interrupted).
+	 */
+	private boolean awaitRound() {
+		try {
+			this.barrier.await();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (BrokenBarrierException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Publishes the best of the solutions that the workers improved to in the round (in lockstep mode).
+	 * Runs in a single thread while all workers wait, so ties are broken by the worker no. and not by timing.
+	 */
+	private void selectBest() {
+		Solution best = null;
+		for (int i = 0; i < this.workerBests.length; i++) {
+			if (this.workerBests[i] != null && (best == null || this.workerBests[i].getCost() < best.getCost())) {
+				best = this.workerBests[i];
+			}
+			this.workerBests[i] = null;
+		}
+		if (best != null) {
+			publish(best);
+		}
+	}
+	
+	/**
+	 * Tests whether a cost beats the current global best (so a copy is only made when it may be published).
+	 * @param cost - The cost.
+	 * @return - Whether the cost is lower than that of the global best.
+	 */
+	private boolean isBetterThanPublished(int cost) {
+		Solution current = this.bestSolution.get();
+		return current == null || cost < current.getCost();
+	}
+	
+	/**
+	 * Offers a solution as the global best.
+	 * @param solution - A solution that no worker changes (it is never changed again if it is published).
+	 */
+	private void publish(Solution solution) {
+		Solution current = this.bestSolution.get();
+		while (current == null || solution.getCost() < current.getCost()) {
+			if (this.bestSolution.compareAndSet(current, solution)) {
+				if (this.checkpointWriter != null) {
+					this.checkpointWriter.offer(solution);
+				}
+				return;
+			}
+			current = this.bestSolution.get();
+		}
+	}
+}
@@ -0,0 +1,235 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.Phaser;
+
+/**
+ * Parallel tempering (replica exchange): one thread per replica runs simulated annealing on its own solution
+ * at a temperature from a geometric ladder. After every round the replicas wait at a phaser, and replicas
+ * at neighbouring temperatures swap temperatures with the Metropolis probability of exchanging their costs.
+ * Within a round the temperatures are fixed; between rounds the whole ladder is lowered, like the cooling of annealing.
+ * Only the temperatures are exchanged, never the timetables, so an exchange is O(1).
+ * The exchanges are decided by a single thread while all replicas wait, so with a fixed no. of rounds
+ * the result only depends on the seed and the no. of replicas.
+ *
+ */
+public class ParallelTempering {
+
+	// Iterations of each replica between exchanges
+	final static int ITERATIONS_PER_ROUND = 2000;
+	// The temperature ladder at the start of the run
+	final static double MIN_TEMPERATURE = 0.5;
+	final static double MAX_TEMPERATURE = 5.0;
+	// The whole ladder is lowered geometrically by this factor over the run
+	final static double LADDER_COOLING = 0.025;
+
+	private Solution initialSolution;
+	private int noOfReplicas;
+	private SplittableRandom random;
+	private TelemetryReporter reporter;			// optional, each replica registers its own telemetry
+	private CheckpointWriter checkpointWriter;	// optional, is offered every new best after a round
+	private double[] temperatures;				// k				-> temperature (ascending)
+	private double[] exchangeScales;			// k				-> expIndexScale of exchanging temperature k and k+1
+	private SimulatedAnnealingSearch[] replicas;
+	private Solution[] solutions;				// replica no.		-> its working solution
+	private int[] replicaAt;					// k				-> replica no. at temperature k
+	private int bestCost;						// best cost of any replica after the last round
+	private long exchangesTried;
+	private long exchangesAccepted;
+	private long rounds;
+
+	/**
+	 * Constructor.
+	 * @param initialSolution - The solution that every replica starts from a copy of (it is not changed).
+	 * @param noOfReplicas - The no. of replicas (and threads).
+	 */
+	public ParallelTempering(Solution initialSolution, int noOfReplicas) {
+		this.initialSolution = initialSolution;
+		this.noOfReplicas = noOfReplicas;
+		this.random = new SplittableRandom();
+		this.temperatures = new double[noOfReplicas];
+		this.exchangeScales = new double[noOfReplicas];
+	}
+
+	/**
+	 * Lets the replicas count their iterations and improvements in the telemetry of a reporter.
+	 * @param reporter - The reporter (started and stopped by the caller).
+	 */
+	public void setReporter(TelemetryReporter reporter) {
+		this.reporter = reporter;
+	}
+
+	/**
+	 * Lets the best solution be offered to a checkpoint writer after every round where it improved.
+	 * @param checkpointWriter - The checkpoint writer (started and stopped by the caller).
+	 */
+	public void setCheckpointWriter(CheckpointWriter checkpointWriter) {
+		this.checkpointWriter = checkpointWriter;
+	}
+
+	/**
+	 * Sets the seed that the random generators of the replicas and the exchanges are split from.
+	 * @param seed - The seed.
+	 */
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Runs the replicas until the time limit is reached.
+	 * @param timeLimit - The time limit in seconds.
+	 * @return - The best solution found by any replica.
+	 * @throws InterruptedException
+	 */
+	public Solution run(double timeLimit) throws InterruptedException {
+		return runReplicas(System.nanoTime() + (long) (timeLimit * 1e9), Long.MAX_VALUE);
+	}
+
+	/**
+	 * Runs the replicas for a fixed no. of iterations, so the result only depends on the seed and the no. of replicas.
+	 * @param iterationsPerReplica - The no. of iterations of each replica (rounded up to whole rounds).
+	 * @return - The best solution found by any replica.
+	 * @throws InterruptedException
+	 */
+	public Solution runDeterministic(long iterationsPerReplica) throws InterruptedException {
+		return runReplicas(Long.MAX_VALUE, Math.max(1, (iterationsPerReplica + ITERATIONS_PER_ROUND - 1) / ITERATIONS_PER_ROUND));
+	}
+
+	/**
+	 * Gets the total number of iterations performed by all replicas.
+	 * @return - The total number of iterations.
+	 */
+	public long getTotalIterations() {
+		return this.rounds * ITERATIONS_PER_ROUND * this.noOfReplicas;
+	}
+
+	/**
+	 * Gets the total number of exchanges of temperatures that were tried.
+	 * @return - The no. of exchanges tried.
+	 */
+	public long getExchangesTried() {
+		return this.exchangesTried;
+	}
+
+	/**
+	 * Gets the total number of exchanges of temperatures that were accepted.
+	 * @return - The no. of exchanges accepted.
+	 */
+	public long getExchangesAccepted() {
+		return this.exchangesAccepted;
+	}
+
+	/**
+	 * Creates the replicas, runs them and waits for them to finish.
+	 * @param deadline - The System.nanoTime() after which no new round is started.
+	 * @param noOfRounds - The maximum no. of rounds.
+	 * @return - The best solution found by any replica.
+	 * @throws InterruptedException
+	 */
+	private Solution runReplicas(final long deadline, final long noOfRounds) throws InterruptedException {
+		this.replicas = new SimulatedAnnealingSearch[this.noOfReplicas];
+		this.solutions = new Solution[this.noOfReplicas];
+		this.replicaAt = new int[this.noOfReplicas];
+		for (int i = 0; i < this.noOfReplicas; i++) {
+			this.solutions[i] = new Solution(this.initialSolution);
+			this.replicas[i] = new SimulatedAnnealingSearch(this.solutions[i], false, this.random.split(), deadline);
+			this.replicaAt[i] = i;
+			if (this.reporter != null) {
+				this.replicas[i].setTelemetry(this.reporter.register("replica-" + i));
+				this.replicas[i].getTelemetry().recordBest(this.solutions[i]);
+			}
+		}
+		setLadder(0);
+		this.bestCost = this.initialSolution.getCost();
+		final long startTime = System.nanoTime();
+		final SplittableRandom exchangeRandom = this.random.split();
+		final Phaser phaser = new Phaser(this.noOfReplicas) {
+			protected boolean onAdvance(int phase, int registeredParties) {
+				rounds++;
+				double progress = noOfRounds == Long.MAX_VALUE ? (System.nanoTime() - startTime) / (double) (deadline - startTime)
+						: rounds / (double) noOfRounds;
+				setLadder(Math.min(1, progress));
+				exchange(phase, exchangeRandom);
+				return rounds >= noOfRounds || System.nanoTime() >= deadline;
+			}
+		};
+		Thread[] workers = new Thread[this.noOfReplicas];
+		for (int i = 0; i < this.noOfReplicas; i++) {
+			final Search replica = this.replicas[i];
+			workers[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while (!phaser.isTerminated()) {
+							for (int j = 0; j < ITERATIONS_PER_ROUND; j++) {
+								replica.iterate();
+							}
+							phaser.arriveAndAwaitAdvance();
+						}
+					} catch (RuntimeException | Error e) {
+						phaser.forceTermination(); // releases the replicas waiting for this one
+						throw e;
+					}
+				}
+			}, "replica-" + i);
+			workers[i].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		int best = 0;
+		for (int i = 1; i < this.noOfReplicas; i++) {
+			if (this.replicas[i].getBestCost() < this.replicas[best].getBestCost()) {
+				best = i;
+			}
+		}
+		return this.replicas[best].getBestSolution();
+	}
+
+	/**
+	 * Sets the temperatures of the ladder and gives each replica the temperature it is at.
+	 * Runs in a single thread while all replicas wait.
+	 * @param progress - How much of the run has passed (0 to 1).
+	 */
+	private void setLadder(double progress) {
+		double factor = Math.pow(LADDER_COOLING, progress);
+		for (int k = 0; k < this.noOfReplicas; k++) {
+			double position = this.noOfReplicas == 1 ? 0 : k / (double) (this.noOfReplicas - 1);
+			this.temperatures[k] = factor * MIN_TEMPERATURE * Math.pow(MAX_TEMPERATURE / MIN_TEMPERATURE, position);
+			this.replicas[this.replicaAt[k]].setTemperatures(this.temperatures[k], this.temperatures[k]);
+		}
+		// Exchanging costs a and b between temperatures T and T' is accepted with exp(-(b - a) * (1/T - 1/T'))
+		for (int k = 0; k + 1 < this.noOfReplicas; k++) {
+			this.exchangeScales[k] = SimulatedAnnealingSearch.expIndexScale(1 / (1 / this.temperatures[k] - 1 / this.temperatures[k + 1]));
+		}
+	}
+
+	/**
+	 * Tries to exchange the temperatures of neighbouring replicas, the even pairs in even rounds and the odd pairs in odd rounds.
+	 * Runs in a single thread while all replicas wait.
+	 * @param phase - The no. of the round.
+	 * @param random - The random generator of the exchanges.
+	 */
+	private void exchange(int phase, SplittableRandom random) {
+		for (int k = phase % 2; k + 1 < this.noOfReplicas; k += 2) {
+			int cold = this.replicaAt[k];
+			int hot = this.replicaAt[k + 1];
+			int delta = this.solutions[hot].getCost() - this.solutions[cold].getCost();
+			this.exchangesTried++;
+			if (delta <= 0 || SimulatedAnnealingSearch.isAccepted(delta, this.exchangeScales[k], random)) {
+				this.replicaAt[k] = hot;
+				this.replicaAt[k + 1] = cold;
+				this.replicas[hot].setTemperatures(this.temperatures[k], this.temperatures[k]);
+				this.replicas[cold].setTemperatures(this.temperatures[k + 1], this.temperatures[k + 1]);
+				this.exchangesAccepted++;
+			}
+		}
+		int best = -1;
+		for (int i = 0; i < this.noOfReplicas; i++) {
+			if (this.replicas[i].getBestCost() < this.bestCost) {
+				this.bestCost = this.replicas[i].getBestCost();
+				best = i;
+			}
+		}
+		if (best >= 0 && this.checkpointWriter != null) {
+			this.checkpointWriter.offer(this.solutions[best].copySnapshot());
+		}
+	}
+}
@@ -1,10 +1,15 @@
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.StreamTokenizer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Represents a problem instance.
@@ -19,10 +24,27 @@ public class Problem {
 			   periodsPerDay,
 			   noOfCurricula,
 			   noOfConstraints,
-			   noOfLecturers;
+			   noOfLecturers,
+			   noOfTimeslots;
 	public HashMap<Integer, Course> courses;						// courseID -> course object
 	public HashMap<Integer, Integer> roomCapacity;					// roomID -> no. of seats
 	
+	// Dense (compiled) view of the instance, built once after reading and never changed afterwards
+	public int[] courseStudents;									// courseID -> no. of students
+	public int[] courseLectures;									// courseID -> no. of lectures
+	public int[] courseMinWorkDays;									// courseID -> min. no. of working days
+	public int[] courseLecturer;									// courseID -> lecturerID
+	public int[][] courseCurricula;									// courseID -> curricula of the course
+	public long[] courseUnavailability;								// courseID * timeslotWords + word -> unavailable timeslots (bitset)
+	public int timeslotWords;										// no. of longs needed for one timeslot bitset
+	public int[] roomCapacities;									// roomID -> no. of seats
+	public int[] capacityOverflow;									// courseID * noOfRooms + roomID -> students without a seat
+	// Conflict graph: courses that can never share a timeslot (same lecturer or a common curriculum, incl. the course itself)
+	public long[] courseConflicts;									// courseID * courseWords + word -> conflicting courses (bitset)
+	public int courseWords;											// no. of longs needed for one course bitset
+	public int[] conflictOffsets;									// courseID -> first index in conflictCourses (CSR, noOfCourses + 1 entries)
+	public int[] conflictCourses;									// conflictOffsets[c] .. conflictOffsets[c + 1] - 1 -> courses conflicting with c
+	
     /**
      * Constructor.
      * @param dataLocation - The path where the problem data files are located.
@@ -30,16 +52,108 @@ public class Problem {
      * @throws IOException
      */
     public Problem(String dataLocation, String[] args) throws IOException
+    {
+    	this(dataLocation, args, null);
+    }
+    
+    /**
+     * Constructor that parses the data files in parallel.
+     * @param dataLocation - The path where the problem data files are located.
+     * @param args
+     * @param executor - Executor used for parsing the files concurrently (or null to parse them one by one).
+     * @throws IOException
+     */
+    public Problem(String dataLocation, String[] args, ExecutorService executor) throws IOException
     {
     	this.courses = new HashMap<Integer, Course>();
     	this.roomCapacity = new HashMap<Integer, Integer>();
     	// Structure of args:
     	// (0)basic.utt (1)courses.utt (2)lecturers.utt (3)rooms.utt (4)curricula.utt (5)relation.utt (6)unavailability.utt (7)60
-        readBasic(dataLocation, args[0]);
-        readCourses(dataLocation, args[1]);
-        readRooms(dataLocation, args[3]);
-        readRelations(dataLocation, args[5]);
-        readUnavailabilities(dataLocation, args[6]);
+    	// Only the parsing is done in parallel, the readers are consumed in order since e.g. relations refer to courses
+    	InputReader[] readers = openReaders(dataLocation, args, new int[]{0, 1, 3, 5, 6}, executor);
+        readBasic(readers[0]);
+        readCourses(readers[1]);
+        readRooms(readers[2]);
+        readRelations(readers[3]);
+        readUnavailabilities(readers[4]);
+        compile();
+    }
+    
+    /**
+     * Constructor for instances restored by ProblemCache.
+     * The counts and dense arrays must be filled in before calling restoreFromCompiled().
+     */
+    Problem() {
+    }
+    
+    /**
+     * Rebuilds everything that is derived from the counts and the dense arrays
+     * (the course and room maps, the capacity overflow table and the conflict graph).
+     */
+    void restoreFromCompiled() {
+    	this.noOfTimeslots = this.noOfDays * this.periodsPerDay;
+    	this.courses = new HashMap<Integer, Course>();
+    	this.roomCapacity = new HashMap<Integer, Integer>();
+    	for (int courseID = 0; courseID < this.noOfCourses; courseID++) {
+    		Course course = new Course(courseID, this.courseLecturer[courseID], this.courseLectures[courseID],
+    				this.courseMinWorkDays[courseID], this.courseStudents[courseID]);
+    		for (int curriculum : this.courseCurricula[courseID]) {
+    			course.curricula.add(curriculum);
+    		}
+    		for (int timeslot = 0; timeslot < this.noOfTimeslots; timeslot++) {
+    			if (isUnavailable(courseID, timeslot)) {
+    				course.unavailability.add(timeslot);
+    			}
+    		}
+    		this.courses.put(courseID, course);
+    	}
+    	for (int room = 0; room < this.noOfRooms; room++) {
+    		this.roomCapacity.put(room, this.roomCapacities[room]);
+    	}
+    	compileCapacityOverflow();
+    	compileConflicts();
+    }
+    
+    /**
+     * Parses the given data files, either one by one or concurrently.
+     * @param dataLocation - The path where the problem data files are located.
+     * @param args - The file names.
+     * @param fileIndices - The indices in args of the files to parse.
+     * @param executor - Executor used for parsing the files concurrently (or null).
+     * @return - A reader for each of the files, in the order of fileIndices.
+     * @throws IOException
+     */
+    private static InputReader[] openReaders(String dataLocation, String[] args, int[] fileIndices, ExecutorService executor) throws IOException {
+    	InputReader[] readers = new InputReader[fileIndices.length];
+    	if (executor == null) {
+    		for (int i = 0; i < fileIndices.length; i++) {
+    			readers[i] = new InputReader(dataLocation + args[fileIndices[i]]);
+    		}
+    		return readers;
+    	}
+    	List<Future<InputReader>> futures = new ArrayList<Future<InputReader>>(fileIndices.length);
+    	for (int i = 0; i < fileIndices.length; i++) {
+    		final String fileName = dataLocation + args[fileIndices[i]];
+    		futures.add(executor.submit(new Callable<InputReader>() {
+    			public InputReader call() throws IOException {
+    				return new InputReader(fileName);
+    			}
+    		}));
+    	}
+    	try {
+	    	for (int i = 0; i < fileIndices.length; i++) {
+	    		readers[i] = futures.get(i).get();
+	    	}
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    		throw new IOException("Interrupted while reading the problem", e);
+    	} catch (ExecutionException e) {
+    		if (e.getCause() instanceof IOException) {
+    			throw (IOException) e.getCause();
+    		}
+    		throw new IOException("Failed to read the problem", e.getCause());
+    	}
+    	return readers;
     }
     
     /**
@@ -52,16 +166,142 @@ public class Problem {
     	return day * this.periodsPerDay + periode;
     }
     
+    /**
+     * Can the two courses never be taught in the same timeslot (same lecturer or a common curriculum)?
+     * A course always conflicts with itself.
+     * @param courseA
+     * @param courseB
+     * @return - Whether the courses are in conflict.
+     */
+    public boolean isConflicting(int courseA, int courseB) {
+    	return (this.courseConflicts[courseA * this.courseWords + (courseB >>> 6)] & (1L << courseB)) != 0;
+    }
+    
+    /**
+     * Gets the no. of other courses that the course is in conflict with.
+     * @param courseID
+     * @return - The degree of the course in the conflict graph.
+     */
+    public int conflictDegree(int courseID) {
+    	return this.conflictOffsets[courseID + 1] - this.conflictOffsets[courseID] - 1;
+    }
+    
+    /**
+     * Is the course unavailable in the given timeslot.
+     * @param courseID
+     * @param timeslot
+     * @return - Whether the course may not be scheduled in the timeslot.
+     */
+    public boolean isUnavailable(int courseID, int timeslot) {
+    	return (this.courseUnavailability[courseID * this.timeslotWords + (timeslot >>> 6)] & (1L << timeslot)) != 0;
+    }
+    
+	/**
+	 * Builds the dense arrays from the courses and rooms that have been read,
+	 * so that lookups in the solver neither box nor hash.
+	 */
+	private void compile() {
+		this.courseStudents = new int[this.noOfCourses];
+		this.courseLectures = new int[this.noOfCourses];
+		this.courseMinWorkDays = new int[this.noOfCourses];
+		this.courseLecturer = new int[this.noOfCourses];
+		this.courseCurricula = new int[this.noOfCourses][];
+		this.timeslotWords = (this.noOfTimeslots + 63) >>> 6;
+		this.courseUnavailability = new long[this.noOfCourses * this.timeslotWords];
+		for (Course course : this.courses.values()) {
+			int courseID = course.courseID;
+			this.courseStudents[courseID] = course.noOfStudents;
+			this.courseLectures[courseID] = course.noOfLectures;
+			this.courseMinWorkDays[courseID] = course.minWorkDays;
+			this.courseLecturer[courseID] = course.lecturerID;
+			this.courseCurricula[courseID] = new int[course.curricula.size()];
+			int i = 0;
+			for (int curriculum : course.curricula) {
+				this.courseCurricula[courseID][i++] = curriculum;
+			}
+			Arrays.sort(this.courseCurricula[courseID]);
+			for (int timeslot : course.unavailability) {
+				this.courseUnavailability[courseID * this.timeslotWords + (timeslot >>> 6)] |= 1L << timeslot;
+			}
+		}
+		this.roomCapacities = new int[this.noOfRooms];
+		for (int room = 0; room < this.noOfRooms; room++) {
+			this.roomCapacities[room] = this.roomCapacity.get(room);
+		}
+		compileCapacityOverflow();
+		compileConflicts();
+	}
+	
+	/**
+	 * Builds the conflict graph (as bitsets and CSR) from the lecturer and curricula of each course.
+	 */
+	private void compileConflicts() {
+		this.courseWords = (this.noOfCourses + 63) >>> 6;
+		this.courseConflicts = new long[this.noOfCourses * this.courseWords];
+		// Courses of each curriculum and each lecturer
+		long[] curriculumCourses = new long[this.noOfCurricula * this.courseWords];
+		long[] lecturerCourses = new long[this.noOfLecturers * this.courseWords];
+		for (int courseID = 0; courseID < this.noOfCourses; courseID++) {
+			for (int curriculum : this.courseCurricula[courseID]) {
+				curriculumCourses[curriculum * this.courseWords + (courseID >>> 6)] |= 1L << courseID;
+			}
+			lecturerCourses[this.courseLecturer[courseID] * this.courseWords + (courseID >>> 6)] |= 1L << courseID;
+		}
+		for (int courseID = 0; courseID < this.noOfCourses; courseID++) {
+			int offset = courseID * this.courseWords;
+			int lecturerOffset = this.courseLecturer[courseID] * this.courseWords;
+			for (int w = 0; w < this.courseWords; w++) {
+				this.courseConflicts[offset + w] |= lecturerCourses[lecturerOffset + w];
+			}
+			for (int curriculum : this.courseCurricula[courseID]) {
+				for (int w = 0; w < this.courseWords; w++) {
+					this.courseConflicts[offset + w] |= curriculumCourses[curriculum * this.courseWords + w];
+				}
+			}
+		}
+		this.conflictOffsets = new int[this.noOfCourses + 1];
+		for (int courseID = 0; courseID < this.noOfCourses; courseID++) {
+			int degree = 0;
+			for (int w = 0; w < this.courseWords; w++) {
+				degree += Long.bitCount(this.courseConflicts[courseID * this.courseWords + w]);
+			}
+			this.conflictOffsets[courseID + 1] = this.conflictOffsets[courseID] + degree;
+		}
+		this.conflictCourses = new int[this.conflictOffsets[this.noOfCourses]];
+		int index = 0;
+		for (int courseID = 0; courseID < this.noOfCourses; courseID++) {
+			for (int w = 0; w < this.courseWords; w++) {
+				long word = this.courseConflicts[courseID * this.courseWords + w];
+				while (word != 0) {
+					this.conflictCourses[index++] = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Builds the course x room capacity overflow table from the dense course and room arrays.
+	 */
+	private void compileCapacityOverflow() {
+		this.capacityOverflow = new int[this.noOfCourses * this.noOfRooms];
+		for (int courseID = 0; courseID < this.noOfCourses; courseID++) {
+			for (int room = 0; room < this.noOfRooms; room++) {
+				this.capacityOverflow[courseID * this.noOfRooms + room] = Math.max(0, this.courseStudents[courseID] - this.roomCapacities[room]);
+			}
+		}
+	}
+    
+    
 	/**
 	 * Reads information from the basic.utt file.
-	 * @param DataLocation
-	 * @param fileName
-	 * @throws IOException
+	 * @param reader - A reader of the file.
+	 * @throws ProblemFormatException
 	 */
-	private void readBasic(String DataLocation, String fileName) throws IOException {
+	private void readBasic(InputReader reader) throws ProblemFormatException {
 		// File structure:
 		// Courses Rooms Days Periods_per_day Curricula Constraints Lecturers
-		InputReader reader = new InputReader(DataLocation + fileName);
+		reader.check(reader.nextRecord(), "Expected 7 numbers");
 		this.noOfCourses = reader.nextNumber();
 		this.noOfRooms = reader.nextNumber();
 		this.noOfDays = reader.nextNumber();
@@ -69,98 +309,85 @@ public class Problem {
 		this.noOfCurricula = reader.nextNumber();
 		this.noOfConstraints = reader.nextNumber();
 		this.noOfLecturers = reader.nextNumber();
+		reader.checkRecord(7, "Expected 7 numbers");
+		this.noOfTimeslots = this.noOfDays * this.periodsPerDay;
 	}
 	
 	/**
 	 * Reads information from the courses.utt file.
-	 * @param DataLocation
-	 * @param fileName
-	 * @throws IOException
+	 * @param reader - A reader of the file.
+	 * @throws ProblemFormatException
 	 */
-	private void readCourses(String DataLocation, String fileName) throws IOException {
+	private void readCourses(InputReader reader) throws ProblemFormatException {
 		// File structure:
 		// CourseID LecturerID Number_of_lectures Minimum_working_days Number_of_students
-		InputReader reader = new InputReader(DataLocation + fileName);
-		boolean reachedEndOfFile = false;
-		while(!reachedEndOfFile) {
+		while (reader.nextRecord()) {
 			int courseID = reader.nextNumber();
 			int lecturerID = reader.nextNumber();
 			int noOfLectures = reader.nextNumber();
 			int minWorkDays = reader.nextNumber();
 			int noOfStudents = reader.nextNumber();
-			if (courseID != -1) {
-				Course currentCourse = new Course(courseID, lecturerID, noOfLectures, minWorkDays, noOfStudents);
-				this.courses.put(courseID, currentCourse);
-			} else {
-				reachedEndOfFile = true;
-			}
+			reader.checkRecord(5, "Expected 5 values");
+			reader.check(courseID < this.noOfCourses, "Course ID out of range");
+			reader.check(lecturerID < this.noOfLecturers, "Lecturer ID out of range");
+			Course currentCourse = new Course(courseID, lecturerID, noOfLectures, minWorkDays, noOfStudents);
+			this.courses.put(courseID, currentCourse);
 		}
+		reader.check(this.courses.size() == this.noOfCourses, "Expected " + this.noOfCourses + " courses");
 	}
 	
 	/**
 	 * Reads information from the rooms.utt file.
-	 * @param DataLocation
-	 * @param fileName
-	 * @throws IOException
+	 * @param reader - A reader of the file.
+	 * @throws ProblemFormatException
 	 */
-	private void readRooms(String DataLocation, String fileName) throws IOException {
+	private void readRooms(InputReader reader) throws ProblemFormatException {
 		// File structure:
 		// RoomID Capacity
-		InputReader reader = new InputReader(DataLocation + fileName);
-		boolean reachedEndOfFile = false;
-		while(!reachedEndOfFile) {
+		while (reader.nextRecord()) {
 			int roomID = reader.nextNumber();
 			int capacity = reader.nextNumber();
-			if (roomID != -1) {
-				this.roomCapacity.put(roomID, capacity);
-			} else {
-				reachedEndOfFile = true;
-			}
+			reader.checkRecord(2, "Expected 2 values");
+			reader.check(roomID < this.noOfRooms, "Room ID out of range");
+			this.roomCapacity.put(roomID, capacity);
 		}
+		reader.check(this.roomCapacity.size() == this.noOfRooms, "Expected " + this.noOfRooms + " rooms");
 	}
 	
 	/**
 	 * Reads information from the relation.utt file.
-	 * @param DataLocation
-	 * @param fileName
-	 * @throws IOException
+	 * @param reader - A reader of the file.
+	 * @throws ProblemFormatException
 	 */
-	private void readRelations(String DataLocation, String fileName) throws IOException {
+	private void readRelations(InputReader reader) throws ProblemFormatException {
 		// File structure:
 		// CurriculumID CourseID
-		InputReader reader = new InputReader(DataLocation + fileName);
-		boolean reachedEndOfFile = false;
-		while(!reachedEndOfFile) {
+		while (reader.nextRecord()) {
 			int curriculumID = reader.nextNumber();
 			int courseID = reader.nextNumber();
-			if (curriculumID != -1) {
-				this.courses.get(courseID).curricula.add(curriculumID);
-			} else {
-				reachedEndOfFile = true;
-			}
+			reader.checkRecord(2, "Expected 2 values");
+			reader.check(curriculumID < this.noOfCurricula, "Curriculum ID out of range");
+			reader.check(this.courses.containsKey(courseID), "Unknown course");
+			this.courses.get(courseID).curricula.add(curriculumID);
 		}
 	}
 	
 	/**
 	 * Reads information from the unavailability.utt file.
-	 * @param DataLocation
-	 * @param fileName
-	 * @throws IOException
+	 * @param reader - A reader of the file.
+	 * @throws ProblemFormatException
 	 */
-	private void readUnavailabilities(String DataLocation, String fileName) throws IOException {
+	private void readUnavailabilities(InputReader reader) throws ProblemFormatException {
 		// File structure:
 		// Course Day Period
-		InputReader reader = new InputReader(DataLocation + fileName);
-		boolean reachedEndOfFile = false;
-		while(!reachedEndOfFile) {
+		while (reader.nextRecord()) {
 			int courseID = reader.nextNumber();
 			int day = reader.nextNumber();
 			int period = reader.nextNumber();
-			if (courseID != -1) {
-				this.courses.get(courseID).unavailability.add(calcTimeslotID(day, period));
-			} else {
-				reachedEndOfFile = true;
-			}
+			reader.checkRecord(3, "Expected 3 values");
+			reader.check(day < this.noOfDays && period < this.periodsPerDay, "Timeslot out of range");
+			reader.check(this.courses.containsKey(courseID), "Unknown course");
+			this.courses.get(courseID).unavailability.add(calcTimeslotID(day, period));
 		}
 	}
 	
@@ -188,55 +415,140 @@ public class Problem {
 
     /**
      * Helper class for easy reading input files.
-     * @author The methods are authored Martin Lundberg-Jensen.
+     * The whole file is read in bulk and its numbers are parsed directly from the bytes.
+     * IDs like C0001 are read as the number after the letters (and may have any no. of digits).
+     * Each line holds a record: nextRecord() starts one and checkRecord() validates that all its values were on that line.
      *
      */
-	public class InputReader {
+	public static class InputReader {
 		
-		private StreamTokenizer streamreader; // stream reader
+		// Numbers the arrays can hold before they are grown (doubled)
+		final static int INITIAL_CAPACITY = 256;
+		
+		private String fileName;
+		private int[] numbers;	// the numbers of the file (after the header line) in order
+		private int[] lines;	// the line of each number
+		private int noOfNumbers;
+		private int position;	// index of the next number to return
+		private int recordStart;	// index of the first number of the current record
 		
 		/**
 	     * Constructor.
-	     * Tries to open the selected file.
+	     * Reads and parses the selected file.
 		 * @param filename
-		 * @throws IOException
+		 * @throws IOException - If the file cannot be read.
+		 * @throws ProblemFormatException - If the file contains anything but IDs and numbers.
 		 */
 	    public InputReader(String filename) throws IOException
 	    {
-	        try{ 
-	        	BufferedReader temp = new BufferedReader(new FileReader(filename));
-	        	temp.readLine(); // Removes first line in the file
-	        	streamreader = new StreamTokenizer(temp);
-	        	
-	        	}
-	        catch(FileNotFoundException e)
-		    {
-			System.err.println("File \"" + filename + "\" not found");
-			System.exit(0);
-		    }
+	    	this.fileName = filename;
+	    	byte[] bytes = Files.readAllBytes(Paths.get(filename));
+	    	this.numbers = new int[INITIAL_CAPACITY];
+	    	this.lines = new int[this.numbers.length];
+	    	int i = 0;
+	    	int line = 1;
+	    	// Removes first line in the file
+	    	while (i < bytes.length && bytes[i] != '\n') {
+	    		i++;
+	    	}
+	    	while (i < bytes.length) {
+	    		byte b = bytes[i];
+	    		if (b == '\n') {
+	    			line++;
+	    			i++;
+	    		} else if (b == ' ' || b == '\t' || b == '\r') {
+	    			i++;
+	    		} else {
+	    			// A token: optional letters followed by digits
+	    			int tokenStart = i;
+	    			while (i < bytes.length && isLetter(bytes[i])) {
+	    				i++;
+	    			}
+	    			int digitsStart = i;
+	    			long value = 0;
+	    			while (i < bytes.length && bytes[i] >= '0' && bytes[i] <= '9') {
+	    				value = value * 10 + (bytes[i] - '0');
+	    				if (value > Integer.MAX_VALUE) {
+	    					throw new ProblemFormatException(filename, line, "Number too large");
+	    				}
+	    				i++;
+	    			}
+	    			if (i == digitsStart || (i < bytes.length && !isSeparator(bytes[i]))) {
+	    				throw new ProblemFormatException(filename, line, "Expected a number or an ID at column " + (tokenStart - lineStart(bytes, tokenStart) + 1));
+	    			}
+	    			if (this.noOfNumbers == this.numbers.length) {
+	    				this.numbers = Arrays.copyOf(this.numbers, 2 * this.numbers.length);
+	    				this.lines = Arrays.copyOf(this.lines, this.numbers.length);
+	    			}
+	    			this.lines[this.noOfNumbers] = line;
+	    			this.numbers[this.noOfNumbers++] = (int) value;
+	    		}
+	    	}
 	    }
 	
 	    /**
 	     * Returns the next number in the data file.
-	     * @return
-	     * @throws IOException
+	     * @return - The next number, or -1 when the end of the file is reached.
 	     */
-	    private int nextNumber() throws IOException {
-	    	try{ streamreader.nextToken();
-	    	} catch(IOException e) {
-				System.err.println("Error: Failed to get next number. Is the file open?");
-				System.exit(-1);
-	    	}
-	    	if(streamreader.ttype == StreamTokenizer.TT_EOF) {
+	    private int nextNumber() {
+	    	if (this.position == this.noOfNumbers) {
 	    		return -1;
 	    	}
-			if(streamreader.ttype != StreamTokenizer.TT_NUMBER){
-				//Takes the substring from L0001, to be 0001, so we have an ID
-				String temp = streamreader.toString().substring(7, 11);
-				return Integer.parseInt(temp);
-			}
-			return (int) streamreader.nval;
+	    	return this.numbers[this.position++];
 		}
+	    
+	    /**
+	     * Starts reading a record (the values of the next line).
+	     * @return - Whether there is a record left, false at the end of the file.
+	     */
+	    private boolean nextRecord() {
+	    	this.recordStart = this.position;
+	    	return this.position < this.noOfNumbers;
+	    }
+	    
+	    /**
+	     * Validates that the record just read has exactly the given no. of values, and that they were all on one line.
+	     * This catches a short or long row where it is, instead of shifting all later values into the wrong fields.
+	     * @param noOfValues - The no. of values of a record.
+	     * @param message - Description of the error if it is not valid.
+	     * @throws ProblemFormatException - If the record is not valid (reported at its first line).
+	     */
+	    private void checkRecord(int noOfValues, String message) throws ProblemFormatException {
+	    	int line = this.lines[this.recordStart];
+	    	boolean isValid = this.position - this.recordStart == noOfValues && this.lines[this.position - 1] == line
+	    			&& (this.position == this.noOfNumbers || this.lines[this.position] != line);
+	    	if (!isValid) {
+	    		throw new ProblemFormatException(this.fileName, line, message + " on the line");
+	    	}
+	    }
+	    
+	    /**
+	     * Validates the numbers just read.
+	     * @param isValid - Whether the numbers are valid.
+	     * @param message - Description of the error if they are not.
+	     * @throws ProblemFormatException - If the numbers are not valid.
+	     */
+	    private void check(boolean isValid, String message) throws ProblemFormatException {
+	    	if (!isValid) {
+	    		int line = (this.position > 0) ? this.lines[this.position - 1] : 1;
+	    		throw new ProblemFormatException(this.fileName, line, message);
+	    	}
+	    }
+	    
+	    private static boolean isLetter(byte b) {
+	    	return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '_';
+	    }
+	    
+	    private static boolean isSeparator(byte b) {
+	    	return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	    }
+	    
+	    private static int lineStart(byte[] bytes, int index) {
+	    	while (index > 0 && bytes[index - 1] != '\n') {
+	    		index--;
+	    	}
+	    	return index;
+	    }
 	}
     
     /**
@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A binary cache of the compiled (dense) problem, written next to the .utt files.
+ * The cache is keyed by a hash of the size and modification time of the data files, so it is rebuilt when they change
+ * (and a cache hit never reads the data files). The cache is read with a single plain read, not memory mapped,
+ * so nothing keeps the file open or mapped when it is replaced by a rebuild.
+ *
+ * File layout (little endian):
+ * - magic, version (int, int)
+ * - key (long, see key)
+ * - noOfCourses, noOfRooms, noOfDays, periodsPerDay, noOfCurricula, noOfConstraints, noOfLecturers (7 ints)
+ * - courseStudents, courseLectures, courseMinWorkDays, courseLecturer (noOfCourses ints each)
+ * - roomCapacities (noOfRooms ints)
+ * - curricula offsets (noOfCourses + 1 ints) and curricula of all courses (CSR)
+ * - padding to 8 bytes, courseUnavailability (noOfCourses * timeslotWords longs)
+ *
+ */
+public class ProblemCache {
+
+	final static String FILE_NAME = "problem.cache";
+	final static int MAGIC = 0x55545443;	// "UTTC"
+	final static int VERSION = 2;			// bump whenever the layout or the key changes
+
+	/**
+	 * Loads the problem from the cache if it is up to date, otherwise parses the data files and (re)writes the cache.
+	 * @param dataLocation - The path where the problem data files are located.
+	 * @param args - The names of the data files (as for the Problem constructor).
+	 * @param forceRebuild - Whether to ignore an existing cache and rebuild it.
+	 * @return - The problem.
+	 * @throws IOException - If the data files cannot be read (failing to write the cache is not an error).
+	 */
+	public static Problem load(String dataLocation, String[] args, boolean forceRebuild) throws IOException {
+		return load(dataLocation, args, forceRebuild, null);
+	}
+
+	/**
+	 * Loads the problem from the cache if it is up to date, otherwise parses the data files (in parallel) and (re)writes the cache.
+	 * @param dataLocation - The path where the problem data files are located.
+	 * @param args - The names of the data files (as for the Problem constructor).
+	 * @param forceRebuild - Whether to ignore an existing cache and rebuild it.
+	 * @param executor - Executor used for parsing the files concurrently (or null to parse them one by one).
+	 * @return - The problem.
+	 * @throws IOException - If the data files cannot be read (failing to write the cache is not an error).
+	 */
+	public static Problem load(String dataLocation, String[] args, boolean forceRebuild, ExecutorService executor) throws IOException {
+		long key = key(dataLocation, args);
+		Path cacheFile = Paths.get(dataLocation, FILE_NAME);
+		if (!forceRebuild) {
+			Problem problem = read(cacheFile, key);
+			if (problem != null) {
+				return problem;
+			}
+		}
+		Problem problem = new Problem(dataLocation, args, executor);
+		try {
+			write(problem, key, cacheFile);
+		} catch (IOException e) {
+			System.err.println("Could not write " + cacheFile + ": " + e);
+		}
+		return problem;
+	}
+
+	/**
+	 * Calculates the key of the data files: a 64 bit FNV-1a hash of the names, sizes and modification times of
+	 * the files (and the cache version). Only the attributes of the files are read, not their content.
+	 * @param dataLocation - The path where the problem data files are located.
+	 * @param args - The names of the data files.
+	 * @return - The key.
+	 * @throws IOException - If a data file does not exist.
+	 */
+	static long key(String dataLocation, String[] args) throws IOException {
+		long key = 0xcbf29ce484222325L ^ VERSION;
+		for (int f = 0; f < args.length; f++) {
+			BasicFileAttributes attributes = Files.readAttributes(Paths.get(dataLocation + args[f]), BasicFileAttributes.class);
+			for (int i = 0; i < args[f].length(); i++) {
+				key = (key ^ args[f].charAt(i)) * 0x100000001b3L;
+			}
+			key = (key ^ attributes.size()) * 0x100000001b3L;
+			key = (key ^ attributes.lastModifiedTime().toMillis()) * 0x100000001b3L;
+		}
+		return key;
+	}
+
+	/**
+	 * Reads a problem from the cache file.
+	 * @param cacheFile - The cache file.
+	 * @param key - The expected key of the data files.
+	 * @return - The problem, or null if there is no valid cache with the given key.
+	 * @throws IOException
+	 */
+	static Problem read(Path cacheFile, long key) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					return null; // truncated while reading
+				}
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		buffer.flip();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < 44 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key) {
+			return null;
+		}
+		Problem problem = new Problem();
+		problem.noOfCourses = buffer.getInt();
+		problem.noOfRooms = buffer.getInt();
+		problem.noOfDays = buffer.getInt();
+		problem.periodsPerDay = buffer.getInt();
+		problem.noOfCurricula = buffer.getInt();
+		problem.noOfConstraints = buffer.getInt();
+		problem.noOfLecturers = buffer.getInt();
+		problem.timeslotWords = (problem.noOfDays * problem.periodsPerDay + 63) >>> 6;
+		int noOfCourses = problem.noOfCourses;
+		try {
+			problem.courseStudents = readInts(buffer, noOfCourses);
+			problem.courseLectures = readInts(buffer, noOfCourses);
+			problem.courseMinWorkDays = readInts(buffer, noOfCourses);
+			problem.courseLecturer = readInts(buffer, noOfCourses);
+			problem.roomCapacities = readInts(buffer, problem.noOfRooms);
+			int[] offsets = readInts(buffer, noOfCourses + 1);
+			int[] curricula = readInts(buffer, offsets[noOfCourses]);
+			problem.courseCurricula = new int[noOfCourses][];
+			for (int courseID = 0; courseID < noOfCourses; courseID++) {
+				problem.courseCurricula[courseID] = Arrays.copyOfRange(curricula, offsets[courseID], offsets[courseID + 1]);
+			}
+			buffer.position((buffer.position() + 7) & ~7);
+			problem.courseUnavailability = new long[noOfCourses * problem.timeslotWords];
+			buffer.asLongBuffer().get(problem.courseUnavailability);
+			buffer.position(buffer.position() + 8 * problem.courseUnavailability.length);
+		} catch (RuntimeException e) { // truncated or corrupt
+			return null;
+		}
+		if (buffer.hasRemaining()) {
+			return null;
+		}
+		problem.restoreFromCompiled();
+		return problem;
+	}
+
+	/**
+	 * Writes the compiled problem to the cache file.
+	 * The file is written under a temporary name and then moved in place, so readers never see a partial cache.
+	 * @param problem - The problem.
+	 * @param key - The key of the data files.
+	 * @param cacheFile - The cache file.
+	 * @throws IOException
+	 */
+	static void write(Problem problem, long key, Path cacheFile) throws IOException {
+		int noOfCourses = problem.noOfCourses;
+		int noOfCurriculaLinks = 0;
+		for (int courseID = 0; courseID < noOfCourses; courseID++) {
+			noOfCurriculaLinks += problem.courseCurricula[courseID].length;
+		}
+		int noOfInts = 7 + 4 * noOfCourses + problem.noOfRooms + noOfCourses + 1 + noOfCurriculaLinks;
+		int size = ((16 + 4 * noOfInts + 7) & ~7) + 8 * problem.courseUnavailability.length;
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(key);
+		buffer.putInt(problem.noOfCourses).putInt(problem.noOfRooms).putInt(problem.noOfDays).putInt(problem.periodsPerDay)
+			.putInt(problem.noOfCurricula).putInt(problem.noOfConstraints).putInt(problem.noOfLecturers);
+		writeInts(buffer, problem.courseStudents);
+		writeInts(buffer, problem.courseLectures);
+		writeInts(buffer, problem.courseMinWorkDays);
+		writeInts(buffer, problem.courseLecturer);
+		writeInts(buffer, problem.roomCapacities);
+		int offset = 0;
+		buffer.putInt(offset);
+		for (int courseID = 0; courseID < noOfCourses; courseID++) {
+			offset += problem.courseCurricula[courseID].length;
+			buffer.putInt(offset);
+		}
+		for (int courseID = 0; courseID < noOfCourses; courseID++) {
+			writeInts(buffer, problem.courseCurricula[courseID]);
+		}
+		buffer.position((buffer.position() + 7) & ~7);
+		buffer.asLongBuffer().put(problem.courseUnavailability);
+		buffer.position(0);
+
+		Path temporaryFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), FILE_NAME, ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int length) {
+		int[] ints = new int[length];
+		buffer.asIntBuffer().get(ints);
+		buffer.position(buffer.position() + 4 * length);
+		return ints;
+	}
+
+	private static void writeInts(ByteBuffer buffer, int[] ints) {
+		buffer.asIntBuffer().put(ints);
+		buffer.position(buffer.position() + 4 * ints.length);
+	}
+}
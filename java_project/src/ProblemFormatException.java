@@ -0,0 +1,25 @@
+import java.io.IOException;
+
+/**
+ * Thrown when a problem data file does not have the expected format.
+ *
+ */
+public class ProblemFormatException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public String fileName;	// the malformed file
+	public int line;		// the line (1-based) where the error was found
+	
+	/**
+	 * Constructor.
+	 * @param fileName - The malformed file.
+	 * @param line - The line where the error was found.
+	 * @param message - Description of the error.
+	 */
+	public ProblemFormatException(String fileName, int line, String message) {
+		super(fileName + ":" + line + ": " + message);
+		this.fileName = fileName;
+		this.line = line;
+	}
+}
@@ -1,42 +1,83 @@
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents a random Action i.e. insert/remove a random lecture into a random slot in the timetable.
+ * The same instance is meant to be reused: call randomize() to draw a new action.
  *
  */
 public class RandomAction implements Action {
 
+	// No. of slots drawn for an insert before settling for an infeasible one
+	final static int MAX_TIMESLOT_TRIES = 10;
+	
 	private boolean insert;
 	private int room;
 	private int day;
 	private int period;
 	private int courseID;
-	private Random randomGenerator;
+	private SplittableRandom randomGenerator;
 	private Solution solution;
 	
 	/*
 	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
 	 */
-	public RandomAction(Solution solution) {
-		this.randomGenerator = new Random();
+	public RandomAction(Solution solution, SplittableRandom randomGenerator) {
+		this.randomGenerator = randomGenerator;
 		this.solution = solution;
-		this.insert = randomGenerator.nextBoolean();
-		this.room = randomGenerator.nextInt(solution.problem.noOfRooms);
-		this.day = randomGenerator.nextInt(solution.problem.noOfDays);
-		this.period = randomGenerator.nextInt(solution.problem.periodsPerDay);
-		this.courseID = randomGenerator.nextInt(solution.problem.noOfCourses);
+		randomize();
+	}
+	
+	/*
+	 * Draws a new random action.
+	 * Inserts take a course with unscheduled lectures and an empty slot (redrawn a bounded no. of times until
+	 * the course can be taught there), removes take an occupied slot.
+	 */
+	public void randomize() {
+		int noOfTimeslots = solution.problem.noOfTimeslots;
+		int courseToInsert = solution.randomUnscheduledCourse(randomGenerator);
+		int slot = solution.randomEmptySlot(randomGenerator);
+		this.insert = courseToInsert != Solution.EMPTY && slot != Solution.EMPTY && randomGenerator.nextBoolean();
+		if (this.insert) {
+			this.courseID = courseToInsert;
+			for (int tries = 1; tries < MAX_TIMESLOT_TRIES && !solution.isTimeslotFeasible(slot % noOfTimeslots, courseID); tries++) {
+				slot = solution.randomEmptySlot(randomGenerator);
+			}
+		} else {
+			slot = solution.randomOccupiedSlot(randomGenerator);
+			if (slot == Solution.EMPTY) {
+				slot = 0; // nothing to remove (the action is infeasible)
+			}
+		}
+		this.room = slot / noOfTimeslots;
+		this.day = (slot % noOfTimeslots) / solution.problem.periodsPerDay;
+		this.period = (slot % noOfTimeslots) % solution.problem.periodsPerDay;
+	}
+	
+	/*
+	 * Calculates the change in cost of the random action without changing the solution.
+	 * @return - The change in total cost OR Solution.INFEASIBLE if the action would make no change.
+	 */
+	public int evaluate() {
+		if (insert) {
+			return solution.deltaInsertLecture(room, day, period, courseID);
+		} else {
+			return solution.deltaRemoveLecture(room, day, period);
+		}
 	}
 	
 	/*
 	 * Tries to execute the random action.
-	 * @return - The total cost after the insertion/removal OR null if no change was made.
+	 * @return - The total cost after the insertion/removal OR Solution.INFEASIBLE if no change was made.
 	 */
-	public Integer execute() {
+	public int execute() {
 		if (insert) {
 			return solution.insertLecture(room, day, period, courseID);
 		} else {
-			if (this.solution.getCourse(room, day, period) != null) {
-				this.courseID = this.solution.getCourse(room, day, period);
+			int courseInSlot = this.solution.getCourseID(room, day, period);
+			if (courseInSlot != Solution.EMPTY) {
+				this.courseID = courseInSlot;
 			}
 			return solution.removeLecture(room, day, period);
 		}
@@ -44,11 +85,11 @@ public class RandomAction implements Action {
 
 	/*
 	 * Tries to revert the random action.
-	 * @return - The total cost after the insertion/removal OR null if no change was made.
+	 * @return - The total cost after the insertion/removal OR Solution.INFEASIBLE if no change was made.
 	 */
-	public Integer revert() {
+	public int revert() {
 		this.insert = !this.insert; // flip
-		Integer cost = execute();
+		int cost = execute();
 		this.insert = !this.insert; // flip back
 		return cost;
 	}
@@ -0,0 +1,69 @@
+import java.util.SplittableRandom;
+
+/**
+ * Represents an Action that relocates a set of scheduled lectures simultaneously (e.g. a swap).
+ * Subclasses decide which lectures to relocate in randomize(); evaluation and feasibility are
+ * handled by Solution.deltaRelocateLectures and Solution.relocateLectures.
+ *
+ */
+abstract public class RelocationAction implements Action {
+
+	protected Solution solution;
+	protected SplittableRandom randomGenerator;
+	// The relocation drawn by randomize() (noOfLectures == 0 means no relocation could be drawn)
+	protected int noOfLectures;
+	protected int[] fromRooms;
+	protected int[] fromTimeslots;
+	protected int[] toRooms;
+	protected int[] toTimeslots;
+	
+	/*
+	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
+	 * @param maxNoOfLectures - The maximum number of lectures relocated by one action.
+	 */
+	public RelocationAction(Solution solution, SplittableRandom randomGenerator, int maxNoOfLectures) {
+		this.solution = solution;
+		this.randomGenerator = randomGenerator;
+		this.fromRooms = new int[maxNoOfLectures];
+		this.fromTimeslots = new int[maxNoOfLectures];
+		this.toRooms = new int[maxNoOfLectures];
+		this.toTimeslots = new int[maxNoOfLectures];
+	}
+	
+	/*
+	 * Calculates the change in cost of the relocation without changing the solution.
+	 * @return - The change in total cost OR Solution.INFEASIBLE if the relocation is infeasible.
+	 */
+	public int evaluate() {
+		return solution.deltaRelocateLectures(noOfLectures, fromRooms, fromTimeslots, toRooms, toTimeslots);
+	}
+	
+	/*
+	 * Tries to execute the relocation.
+	 * @return - The total cost after the relocation OR Solution.INFEASIBLE if no change was made.
+	 */
+	public int execute() {
+		return solution.relocateLectures(noOfLectures, fromRooms, fromTimeslots, toRooms, toTimeslots);
+	}
+	
+	/*
+	 * Tries to revert the relocation.
+	 * @return - The total cost after the relocation OR Solution.INFEASIBLE if no change was made.
+	 */
+	public int revert() {
+		return solution.relocateLectures(noOfLectures, toRooms, toTimeslots, fromRooms, fromTimeslots);
+	}
+	
+	/*
+	 * Adds a lecture to the relocation.
+	 */
+	protected void add(int fromRoom, int fromTimeslot, int toRoom, int toTimeslot) {
+		this.fromRooms[noOfLectures] = fromRoom;
+		this.fromTimeslots[noOfLectures] = fromTimeslot;
+		this.toRooms[noOfLectures] = toRoom;
+		this.toTimeslots[noOfLectures] = toTimeslot;
+		this.noOfLectures++;
+	}
+}
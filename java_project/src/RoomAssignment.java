@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Represents reassigning the rooms of all lectures in a random timeslot optimally.
+ * A course has at most one lecture in a timeslot, so the RoomCapacity and RoomStability cost of giving each lecture
+ * a room only depends on that lecture, and the best assignment is a min-cost assignment of lectures to rooms,
+ * solved with the Hungarian algorithm (O(lectures^2 * rooms)). Only the lectures that change room are relocated.
+ * It is used to polish a solution (see polish and SteepestDescent) and as a neighbourhood of LateAcceptanceSearch.
+ *
+ */
+public class RoomAssignment extends RelocationAction {
+
+	private CostCalculator costCalculator;
+	private int noOfRooms;
+	// The assignment problem of one timeslot (rows are lectures, columns are rooms, both counted from 1)
+	private int[] rooms;			// row		-> room of the lecture
+	private int[] costs;			// (row - 1) * noOfRooms + (column - 1)	-> cost of the assignment (scaled, see assign)
+	private int[] rowPotentials;
+	private int[] columnPotentials;
+	private int[] assignedRow;		// column	-> row assigned to it (0 if none)
+	private int[] path;				// column	-> the previous column on the augmenting path
+	private int[] minSlack;
+	private boolean[] isVisited;
+
+	/*
+	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
+	 */
+	public RoomAssignment(Solution solution, SplittableRandom randomGenerator) {
+		super(solution, randomGenerator, solution.problem.noOfRooms);
+		this.costCalculator = solution.getCostCalculator();
+		this.noOfRooms = solution.problem.noOfRooms;
+		this.rooms = new int[this.noOfRooms + 1];
+		this.costs = new int[this.noOfRooms * this.noOfRooms];
+		this.rowPotentials = new int[this.noOfRooms + 1];
+		this.columnPotentials = new int[this.noOfRooms + 1];
+		this.assignedRow = new int[this.noOfRooms + 1];
+		this.path = new int[this.noOfRooms + 1];
+		this.minSlack = new int[this.noOfRooms + 1];
+		this.isVisited = new boolean[this.noOfRooms + 1];
+		if (randomGenerator != null) {
+			randomize();
+		}
+	}
+
+	/*
+	 * Draws the timeslot of a random lecture and finds its best room assignment.
+	 */
+	public void randomize() {
+		this.noOfLectures = 0;
+		int slot = solution.randomOccupiedSlot(randomGenerator);
+		if (slot == Solution.EMPTY) {
+			return;
+		}
+		assign(slot % solution.problem.noOfTimeslots);
+	}
+
+	/**
+	 * Reassigns the rooms of every timeslot optimally (a polishing pass, which never makes the solution worse).
+	 * @param solution - The solution, which is changed in place.
+	 * @return - The cost of the solution afterwards.
+	 */
+	public static int polish(Solution solution) {
+		RoomAssignment roomAssignment = new RoomAssignment(solution, null);
+		for (int timeslot = 0; timeslot < solution.problem.noOfTimeslots; timeslot++) {
+			if (roomAssignment.assign(timeslot) < 0) {
+				roomAssignment.execute();
+			}
+		}
+		return solution.getCost();
+	}
+
+	/**
+	 * Finds the best assignment of the lectures in a timeslot to rooms and sets it as the relocation of this action.
+	 * No lectures are relocated if the current assignment is already optimal.
+	 * @param timeslot - The timeslot.
+	 * @return - The change in total cost of the relocation (0 if it is empty).
+	 */
+	public int assign(int timeslot) {
+		this.noOfLectures = 0;
+		int day = timeslot / solution.problem.periodsPerDay;
+		int period = timeslot % solution.problem.periodsPerDay;
+		int noOfRows = 0;
+		for (int room = 0; room < this.noOfRooms; room++) {
+			if (solution.getCourseID(room, timeslot) != Solution.EMPTY) {
+				this.rooms[++noOfRows] = room;
+			}
+		}
+		if (noOfRows == 0) {
+			return 0;
+		}
+		// The costs are scaled so that, among the optimal assignments, the one moving the fewest lectures wins
+		int scale = noOfRows + 1;
+		for (int row = 1; row <= noOfRows; row++) {
+			int fromRoom = this.rooms[row];
+			int courseID = solution.getCourseID(fromRoom, timeslot);
+			for (int room = 0; room < this.noOfRooms; room++) {
+				int cost = 0;
+				if (room != fromRoom) {
+					cost = this.costCalculator.deltaMove(courseID, fromRoom, day, period, room, day, period) * scale + 1;
+				}
+				this.costs[(row - 1) * this.noOfRooms + room] = cost;
+			}
+		}
+		solveAssignment(noOfRows);
+		int delta = 0;
+		for (int column = 1; column <= this.noOfRooms; column++) {
+			int row = this.assignedRow[column];
+			if (row != 0 && this.rooms[row] != column - 1) {
+				delta += (this.costs[(row - 1) * this.noOfRooms + column - 1] - 1) / scale;
+				add(this.rooms[row], timeslot, column - 1, timeslot);
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * The Hungarian algorithm with potentials: assigns every row to a distinct column at minimum total cost.
+	 * Each row is added by finding a shortest augmenting path (Dijkstra on the reduced costs).
+	 * @param noOfRows - The no. of rows (at most the no. of columns).
+	 */
+	private void solveAssignment(int noOfRows) {
+		int noOfColumns = this.noOfRooms;
+		Arrays.fill(this.rowPotentials, 0, noOfRows + 1, 0);
+		Arrays.fill(this.columnPotentials, 0);
+		Arrays.fill(this.assignedRow, 0);
+		for (int row = 1; row <= noOfRows; row++) {
+			// Column 0 is a dummy holding the new row until the path reaches a free column
+			this.assignedRow[0] = row;
+			int column = 0;
+			Arrays.fill(this.minSlack, Integer.MAX_VALUE);
+			Arrays.fill(this.isVisited, false);
+			do {
+				this.isVisited[column] = true;
+				int visitedRow = this.assignedRow[column];
+				int offset = (visitedRow - 1) * noOfColumns - 1;
+				int delta = Integer.MAX_VALUE;
+				int nextColumn = 0;
+				for (int j = 1; j <= noOfColumns; j++) {
+					if (!this.isVisited[j]) {
+						int slack = this.costs[offset + j] - this.rowPotentials[visitedRow] - this.columnPotentials[j];
+						if (slack < this.minSlack[j]) {
+							this.minSlack[j] = slack;
+							this.path[j] = column;
+						}
+						if (this.minSlack[j] < delta) {
+							delta = this.minSlack[j];
+							nextColumn = j;
+						}
+					}
+				}
+				for (int j = 0; j <= noOfColumns; j++) {
+					if (this.isVisited[j]) {
+						this.rowPotentials[this.assignedRow[j]] += delta;
+						this.columnPotentials[j] -= delta;
+					} else {
+						this.minSlack[j] -= delta;
+					}
+				}
+				column = nextColumn;
+			} while (this.assignedRow[column] != 0);
+			// Flip the assignments along the path
+			do {
+				int previousColumn = this.path[column];
+				this.assignedRow[column] = this.assignedRow[previousColumn];
+				column = previousColumn;
+			} while (column != 0);
+		}
+	}
+}
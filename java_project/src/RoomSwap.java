@@ -0,0 +1,40 @@
+import java.util.SplittableRandom;
+
+/**
+ * Represents swapping the rooms of two lectures in the same random timeslot.
+ * If one of the rooms is free, the lecture in the other room is simply moved.
+ *
+ */
+public class RoomSwap extends RelocationAction {
+
+	/*
+	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
+	 */
+	public RoomSwap(Solution solution, SplittableRandom randomGenerator) {
+		super(solution, randomGenerator, 2);
+		randomize();
+	}
+	
+	/*
+	 * Draws a new random room swap.
+	 */
+	public void randomize() {
+		this.noOfLectures = 0;
+		int slot = solution.randomOccupiedSlot(randomGenerator);
+		if (slot == Solution.EMPTY || solution.problem.noOfRooms < 2) {
+			return;
+		}
+		int timeslot = slot % solution.problem.noOfTimeslots;
+		int roomA = slot / solution.problem.noOfTimeslots;
+		int roomB = randomGenerator.nextInt(solution.problem.noOfRooms - 1);
+		if (roomB >= roomA) {
+			roomB++; // any other room
+		}
+		add(roomA, timeslot, roomB, timeslot);
+		if (solution.getCourseID(roomB, timeslot) != Solution.EMPTY) {
+			add(roomB, timeslot, roomA, timeslot);
+		}
+	}
+}
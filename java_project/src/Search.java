@@ -1,16 +1,222 @@
+import java.util.SplittableRandom;
 
 abstract public class Search {
 
 	private boolean shouldOutputInfo;
+	// One random generator per search (and thereby per thread)
+	protected SplittableRandom random;
+	// Iterations that evaluated a real move, and iterations where the drawn action was infeasible or had no effect
+	private long noOfUsefulIterations;
+	private long noOfWastedIterations;
+	// Optional counters sampled by a TelemetryReporter (null when not in use)
+	private Telemetry telemetry;
+	private String[] moveTypes = new String[0];	// name of each neighbourhood
+	private int lastMoveType;					// index of the neighbourhood of the last drawn action
+	// Optional debug check of the cost bookkeeping against CostValidator (0 when not in use)
+	private int selfCheckInterval;
+	private int iterationsSinceCheck;
+	private Solution searchedSolution;			// the solution the neighbourhoods act on
+	// Iterations that the progress of the search is measured against instead of the time (0 when not in use)
+	private long iterationBudget;
 	
 	public Search(boolean outputInfo) {
+		this(outputInfo, new SplittableRandom());
+	}
+	
+	public Search(boolean outputInfo, SplittableRandom random) {
 		this.shouldOutputInfo = outputInfo;
+		this.random = random;
 	}
 	
 	abstract public void iterate();
 	
+	/**
+	 * Gets the best solution found. The working solution is brought back to the best snapshot if needed.
+	 * @return - The best solution.
+	 */
 	abstract public Solution getBestSolution();
 	
+	/**
+	 * Gets the cost of the best solution found (without restoring it).
+	 * @return - The best cost.
+	 */
+	abstract public int getBestCost();
+	
+	/**
+	 * Creates one reusable action per neighbourhood.
+	 * @param solution - The solution the actions should act on.
+	 * @return - The actions: insert/remove, move, swap, room swap and Kempe chain.
+	 */
+	protected Action[] createNeighbourhoods(Solution solution) {
+		return createNeighbourhoods(solution, false);
+	}
+	
+	/**
+	 * Creates one reusable action per neighbourhood, optionally with the (expensive) optimal room assignment of a timeslot.
+	 * @param solution - The solution the actions should act on.
+	 * @param withRoomAssignment - Whether to add RoomAssignment to the neighbourhoods.
+	 * @return - The actions: insert/remove, move, swap, room swap, Kempe chain and optionally room assignment.
+	 */
+	protected Action[] createNeighbourhoods(Solution solution, boolean withRoomAssignment) {
+		Action[] neighbourhoods = new Action[withRoomAssignment ? 6 : 5];
+		neighbourhoods[0] = new RandomAction(solution, this.random);
+		neighbourhoods[1] = new MoveLecture(solution, this.random);
+		neighbourhoods[2] = new SwapLectures(solution, this.random);
+		neighbourhoods[3] = new RoomSwap(solution, this.random);
+		neighbourhoods[4] = new KempeChain(solution, this.random);
+		if (withRoomAssignment) {
+			neighbourhoods[5] = new RoomAssignment(solution, this.random);
+		}
+		String[] moveTypes = new String[neighbourhoods.length];
+		for (int i = 0; i < neighbourhoods.length; i++) {
+			moveTypes[i] = neighbourhoods[i].getClass().getSimpleName();
+		}
+		setMoveTypes(solution, moveTypes);
+		return neighbourhoods;
+	}
+	
+	/**
+	 * Registers what the search works on, for searches that do not use createNeighbourhoods.
+	 * @param solution - The solution the search changes (validated by the self-check).
+	 * @param moveTypes - The name of each kind of move (counted separately by the telemetry).
+	 */
+	protected void setMoveTypes(Solution solution, String[] moveTypes) {
+		this.searchedSolution = solution;
+		this.moveTypes = moveTypes;
+		if (this.telemetry != null) {
+			this.telemetry.setMoveTypes(moveTypes);
+		}
+	}
+	
+	/**
+	 * Sets the kind of move of the current iteration, for searches that do not use randomAction.
+	 * @param moveType - The index in the move types given to setMoveTypes.
+	 */
+	protected void setMoveType(int moveType) {
+		this.lastMoveType = moveType;
+	}
+	
+	/**
+	 * Draws a random action from a random neighbourhood.
+	 * @param neighbourhoods - The actions to choose between.
+	 * @return - The (reused) action.
+	 */
+	protected Action randomAction(Action[] neighbourhoods) {
+		this.lastMoveType = this.random.nextInt(neighbourhoods.length);
+		Action action = neighbourhoods[this.lastMoveType];
+		action.randomize();
+		return action;
+	}
+	
+	/**
+	 * Counts an iteration as useful or wasted (and as accepted, rejected or infeasible in the telemetry).
+	 * @param delta - The evaluated change in cost of the drawn action (or Solution.INFEASIBLE).
+	 * @param isAccepted - Whether the action was executed.
+	 */
+	protected void countIteration(int delta, boolean isAccepted) {
+		if (this.selfCheckInterval > 0 && ++this.iterationsSinceCheck >= this.selfCheckInterval) {
+			// The drawn action is only evaluated yet, so the solution is in the state the previous iteration left it in
+			CostValidator.validate(this.searchedSolution);
+			this.iterationsSinceCheck = 0;
+		}
+		if (delta == Solution.INFEASIBLE) {
+			this.noOfWastedIterations++;
+		} else {
+			this.noOfUsefulIterations++;
+		}
+		if (this.telemetry != null) {
+			int outcome = delta == Solution.INFEASIBLE ? Telemetry.INFEASIBLE : isAccepted ? Telemetry.ACCEPTED : Telemetry.REJECTED;
+			this.telemetry.count(this.lastMoveType, outcome);
+		}
+	}
+	
+	/**
+	 * Records that the solution has become the new best (call after saving the snapshot).
+	 * @param solution - The solution.
+	 */
+	protected void recordBest(Solution solution) {
+		if (this.telemetry != null) {
+			this.telemetry.recordBest(solution);
+		}
+	}
+	
+	/**
+	 * Lets the search measure its progress (e.g. the cooling schedule) in iterations instead of time,
+	 * so the trajectory only depends on the random generator and not on the speed of the machine.
+	 * @param iterationBudget - The no. of iterations the search will run, or 0 to measure progress in time.
+	 */
+	public void setIterationBudget(long iterationBudget) {
+		this.iterationBudget = iterationBudget;
+	}
+	
+	/**
+	 * Gets how far the search has come, either in iterations (see setIterationBudget) or in time.
+	 * @param startTime - The System.nanoTime() where the search started.
+	 * @param deadline - The System.nanoTime() where the search will be stopped.
+	 * @return - The progress between 0 and 1.
+	 */
+	protected double getProgress(long startTime, long deadline) {
+		double progress;
+		if (this.iterationBudget > 0) {
+			progress = (double) (this.noOfUsefulIterations + this.noOfWastedIterations) / this.iterationBudget;
+		} else {
+			progress = (double) (System.nanoTime() - startTime) / (deadline - startTime);
+		}
+		return Math.min(1, Math.max(0, progress));
+	}
+	
+	/**
+	 * Lets the search validate its solution from scratch at regular intervals (a slow debugging aid).
+	 * @param interval - The no. of iterations between checks, or 0 to stop checking.
+	 */
+	public void setSelfCheck(int interval) {
+		this.selfCheckInterval = interval;
+		this.iterationsSinceCheck = 0;
+	}
+	
+	/**
+	 * Lets the search count its iterations and improvements in a telemetry.
+	 * @param telemetry - The telemetry (typically from TelemetryReporter.register), or null to stop counting.
+	 */
+	public void setTelemetry(Telemetry telemetry) {
+		this.telemetry = telemetry;
+		if (telemetry != null) {
+			telemetry.setMoveTypes(this.moveTypes);
+		}
+	}
+	
+	/**
+	 * Gets the telemetry that the search counts in.
+	 * @return - The telemetry, or null if there is none.
+	 */
+	public Telemetry getTelemetry() {
+		return this.telemetry;
+	}
+	
+	/**
+	 * Gets the no. of iterations that evaluated a feasible action.
+	 * @return - The no. of useful iterations.
+	 */
+	public long getUsefulIterations() {
+		return this.noOfUsefulIterations;
+	}
+	
+	/**
+	 * Gets the no. of iterations where the drawn action was infeasible or had no effect.
+	 * @return - The no. of wasted iterations.
+	 */
+	public long getWastedIterations() {
+		return this.noOfWastedIterations;
+	}
+	
+	/**
+	 * Tests whether the search prints its improvements, so the message is only built when it is printed.
+	 * @return - Whether output is enabled.
+	 */
+	protected boolean shouldOutputInfo() {
+		return this.shouldOutputInfo;
+	}
+	
 	protected void output(Object object) {
 		if (shouldOutputInfo) {
 			System.out.println(object);
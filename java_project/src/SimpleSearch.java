@@ -1,32 +1,48 @@
+import java.util.SplittableRandom;
 
 public class SimpleSearch extends Search {
 
 	private Solution solution;
+	private Action[] neighbourhoods;	// one reusable action per neighbourhood
 	private int countNonimprovements;
 	private int maxNonimprovements = 100000;
-	private Integer cost;
+	private int cost;
+	private int bestCost;				// cost of the snapshot kept in the solution
 	private int countStep;
 	
 	public SimpleSearch(Solution initialSolution, boolean outputInfo) {
-		super(outputInfo);
+		this(initialSolution, outputInfo, new SplittableRandom());
+	}
+	
+	public SimpleSearch(Solution initialSolution, boolean outputInfo, SplittableRandom random) {
+		super(outputInfo, random);
 		this.solution = initialSolution;
+		this.neighbourhoods = createNeighbourhoods(initialSolution);
 		this.cost = initialSolution.getCost();
+		this.bestCost = this.cost;
+		initialSolution.saveSnapshot();
 		output("Initial cost: " + this.cost);
 	}
 	
 	public void iterate() {
 		this.countStep++;
-		Action randomAction = new RandomAction(this.solution);
-    	Integer newCost = randomAction.execute();
-    	if (newCost != null) {
-    		if (newCost < this.cost) {
-	    		this.cost = newCost;
-	    		output("Step " + this.countStep + ": Improving to " + this.cost);
+		Action action = randomAction(this.neighbourhoods);
+    	int delta = action.evaluate();
+    	countIteration(delta, delta < 0);
+    	if (delta != Solution.INFEASIBLE) {
+    		if (delta < 0) { // only improving actions are applied
+	    		this.cost = action.execute();
+	    		if (this.cost < this.bestCost) {
+	    			this.bestCost = this.cost;
+	    			this.solution.saveSnapshot();
+	    			recordBest(this.solution);
+	    			if (shouldOutputInfo()) {
+	    				output("Step " + this.countStep + ": Improving to " + this.cost);
+	    			}
+	    		}
 	    	} else {
-	    		randomAction.revert();
 	    		this.countNonimprovements += 1;
 	    	}
-    	} else {
     	}
     	if (maxNonimprovements < countNonimprovements) {
     		shuffle();
@@ -36,17 +52,26 @@ public class SimpleSearch extends Search {
 	
 	public void shuffle() {
 		for (int i = 0; i < 10; i++) {
-			Action randomAction = new RandomAction(this.solution);
-			Integer newCost = randomAction.execute();
-			if (newCost == null) {
-				randomAction.revert();
+			Action action = this.neighbourhoods[0]; // insert/remove
+			action.randomize();
+			int newCost = action.execute();
+			if (newCost == Solution.INFEASIBLE) {
+				action.revert();
 			}
 			this.cost = solution.getCost();
 		}
 	}
 	
 	public Solution getBestSolution() {
+		if (this.cost != this.bestCost) {
+			this.solution.restoreSnapshot();
+			this.cost = this.solution.getCost();
+		}
 		return this.solution;
 	}
 	
+	public int getBestCost() {
+		return this.bestCost;
+	}
+	
 }
@@ -0,0 +1,136 @@
+import java.util.SplittableRandom;
+
+/**
+ * Simulated annealing: worsening actions are accepted with probability exp(-delta / temperature).
+ * The temperature is lowered geometrically from startTemperature to endTemperature over the time
+ * that remains until the deadline, so the schedule adapts to the time limit (and to restarts).
+ *
+ */
+public class SimulatedAnnealingSearch extends Search {
+
+	// Lookup table for exp(-x) with x in [0, EXP_TABLE_RANGE)
+	final static int EXP_TABLE_SIZE = 4096;
+	final static double EXP_TABLE_RANGE = 16.0;
+	final static double[] EXP_TABLE = new double[EXP_TABLE_SIZE];
+	static {
+		for (int i = 0; i < EXP_TABLE_SIZE; i++) {
+			EXP_TABLE[i] = Math.exp(-i * EXP_TABLE_RANGE / EXP_TABLE_SIZE);
+		}
+	}
+	// Iterations between updates of the temperature (reading the clock is not free)
+	final static int ITERATIONS_PER_TEMPERATURE = 1000;
+	
+	private Solution solution;
+	private Action[] neighbourhoods;	// one reusable action per neighbourhood
+	private int cost;
+	private int bestCost;				// cost of the snapshot kept in the solution
+	private long countStep;
+	private long startTime;
+	private long deadline;
+	private double startTemperature = 4.0;
+	private double endTemperature = 0.1;
+	private double temperature;
+	private double expIndexScale;		// converts a delta into an index in EXP_TABLE at the current temperature
+	
+	/**
+	 * Constructor.
+	 * @param initialSolution - The solution to start from.
+	 * @param outputInfo - Whether to print improvements.
+	 * @param random - The random generator of the search.
+	 * @param deadline - The System.nanoTime() where the search will be stopped.
+	 */
+	public SimulatedAnnealingSearch(Solution initialSolution, boolean outputInfo, SplittableRandom random, long deadline) {
+		super(outputInfo, random);
+		this.solution = initialSolution;
+		this.neighbourhoods = createNeighbourhoods(initialSolution);
+		this.cost = initialSolution.getCost();
+		this.bestCost = this.cost;
+		initialSolution.saveSnapshot();
+		this.startTime = System.nanoTime();
+		this.deadline = deadline;
+		updateTemperature();
+		output("Initial cost: " + this.cost);
+	}
+	
+	/**
+	 * Sets the temperatures of the cooling schedule.
+	 * @param startTemperature - The temperature at the start of the search.
+	 * @param endTemperature - The temperature at the deadline.
+	 */
+	public void setTemperatures(double startTemperature, double endTemperature) {
+		this.startTemperature = startTemperature;
+		this.endTemperature = endTemperature;
+		updateTemperature();
+	}
+	
+	public void iterate() {
+		if (++this.countStep % ITERATIONS_PER_TEMPERATURE == 0) {
+			updateTemperature();
+		}
+		Action action = randomAction(this.neighbourhoods);
+		int delta = action.evaluate();
+		if (delta == Solution.INFEASIBLE) {
+			countIteration(delta, false);
+			return;
+		}
+		boolean isAccepted = delta <= 0 || isAccepted(delta, this.expIndexScale, this.random);
+		countIteration(delta, isAccepted);
+		if (isAccepted) {
+			this.cost = action.execute();
+			if (this.cost < this.bestCost) {
+				this.bestCost = this.cost;
+				this.solution.saveSnapshot();
+				recordBest(this.solution);
+				if (shouldOutputInfo()) {
+					output("Step " + this.countStep + ": Improving to " + this.cost + " (temperature " + this.temperature + ")");
+				}
+			}
+		}
+	}
+	
+	public Solution getBestSolution() {
+		if (this.cost != this.bestCost) {
+			this.solution.restoreSnapshot();
+			this.cost = this.solution.getCost();
+		}
+		return this.solution;
+	}
+	
+	public int getBestCost() {
+		return this.bestCost;
+	}
+	
+	/**
+	 * Metropolis acceptance of a worsening action using the lookup table.
+	 * @param delta - The (positive) change in cost.
+	 * @param expIndexScale - EXP_TABLE_SIZE / (EXP_TABLE_RANGE * temperature).
+	 * @param random - The random generator to draw from.
+	 * @return - Whether the action is accepted.
+	 */
+	static boolean isAccepted(int delta, double expIndexScale, SplittableRandom random) {
+		double index = delta * expIndexScale;
+		if (index >= EXP_TABLE_SIZE) {
+			return false;
+		}
+		return random.nextDouble() < EXP_TABLE[(int) index];
+	}
+	
+	/**
+	 * Converts a temperature into the scale used by isAccepted.
+	 * @param temperature - The temperature.
+	 * @return - The factor converting a delta into an index in EXP_TABLE.
+	 */
+	static double expIndexScale(double temperature) {
+		return EXP_TABLE_SIZE / (EXP_TABLE_RANGE * temperature);
+	}
+	
+	/**
+	 * Sets the temperature according to how much of the time until the deadline (or of the iteration budget) has passed.
+	 */
+	private void updateTemperature() {
+		double progress = getProgress(this.startTime, this.deadline);
+		this.temperature = this.startTemperature * Math.pow(this.endTemperature / this.startTemperature, progress);
+		this.expIndexScale = expIndexScale(this.temperature);
+	}
+	
+}
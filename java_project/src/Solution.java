@@ -1,4 +1,8 @@
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * A representation of a solution instance.
@@ -6,36 +10,95 @@ import java.util.Iterator;
  *
  */
 public class Solution {
+	// Marks an empty slot in the timetable
+	public final static int EMPTY = -1;
+	// Returned instead of a cost when an operation is infeasible or has no effect
+	public final static int INFEASIBLE = Integer.MAX_VALUE;
+	
 	// Reference to the problem which this is a solution for
 	public Problem problem;
 	// Solution state
-	private Integer[][][] timetable;			// room + day + period			-> courseID (The Timetable)
+	private int[] timetable;					// room * noOfTimeslots + timeslot	-> courseID or EMPTY (The Timetable)
 	private int[] unscheduled;					// courseID						-> no. of unscheduled lectures
-	// Bookkeeping of hard constraints
-	private boolean[][][] curriculaTimeslots;	// curriculum + day + period	-> already being thought?
-	private boolean[][][] lecturersTimeslots;	// lecturer + day + period		-> already teaching?
+	// Bookkeeping of hard constraints (see Problem.courseConflicts)
+	private int[] conflictsPlaced;				// timeslot * noOfCourses + courseID	-> no. of placed lectures conflicting with the course
 	// Bookkeeping of soft constraints
 	private CostCalculator costCalculator;
+	// Scratch space for checking relocations of several lectures (touched entries are reset after each check)
+	private boolean[] isSlotVacated;			// room * noOfTimeslots + timeslot	-> vacated by the relocation?
+	private boolean[] isSlotTargeted;			// room * noOfTimeslots + timeslot	-> targeted by the relocation?
+	private int[] relocatedCourses;				// i								-> course ID of the i'th relocated lecture
+	// Snapshot of the timetable and a journal of the slots changed since the snapshot was saved
+	private int[] snapshotTimetable;			// same layout as timetable
+	private int snapshotCost;
+	private boolean[] isSlotChanged;			// room * noOfTimeslots + timeslot	-> changed since the snapshot?
+	private int[] changedSlots;					// the journal (each slot is only listed once)
+	private int noOfChangedSlots;
+	// Indexed lists for sampling in constant time (each is a permutation with the listed entries first)
+	private int[] slots;						// i								-> slot (occupied slots first, then the empty)
+	private int[] slotPositions;				// room * noOfTimeslots + timeslot	-> index in slots
+	private int noOfOccupiedSlots;
+	private int[] courses;						// i								-> courseID (courses with unscheduled lectures first)
+	private int[] coursePositions;				// courseID							-> index in courses
+	private int noOfUnscheduledCourses;
 	
 	public Solution(Problem problem) {
 		this.problem = problem;
 		this.costCalculator = new CostCalculator(problem, this);
 		
 		// Start with empty tables:
-		this.timetable = new Integer[problem.noOfRooms][problem.noOfDays][problem.periodsPerDay];
-		this.curriculaTimeslots = new boolean[problem.noOfCurricula][problem.noOfDays][problem.periodsPerDay];
-		this.lecturersTimeslots = new boolean[problem.noOfLecturers][problem.noOfDays][problem.periodsPerDay];
+		this.timetable = new int[problem.noOfRooms * problem.noOfTimeslots];
+		Arrays.fill(this.timetable, EMPTY);
+		this.conflictsPlaced = new int[problem.noOfTimeslots * problem.noOfCourses];
+		
+		this.isSlotVacated = new boolean[this.timetable.length];
+		this.isSlotTargeted = new boolean[this.timetable.length];
+		this.relocatedCourses = new int[2 * problem.noOfRooms];
+		this.snapshotTimetable = this.timetable.clone();
+		this.snapshotCost = getCost();
+		this.isSlotChanged = new boolean[this.timetable.length];
+		this.changedSlots = new int[this.timetable.length];
+		
+		this.slots = new int[this.timetable.length];
+		this.slotPositions = new int[this.timetable.length];
+		for (int slot = 0; slot < this.timetable.length; slot++) {
+			this.slots[slot] = slot;
+			this.slotPositions[slot] = slot;
+		}
 		
 		this.unscheduled = new int[problem.noOfCourses];
-		Iterator<Integer> courseIDs = problem.courses.keySet().iterator();
-		while (courseIDs.hasNext()) {
-			int courseID = courseIDs.next();
-			Problem.Course course = problem.courses.get(courseID);
-			this.unscheduled[courseID] = course.noOfLectures;
+		this.courses = new int[problem.noOfCourses];
+		this.coursePositions = new int[problem.noOfCourses];
+		for (int courseID = 0; courseID < problem.noOfCourses; courseID++) {
+			this.unscheduled[courseID] = problem.courseLectures[courseID];
+			this.courses[courseID] = courseID;
+			this.coursePositions[courseID] = courseID;
+			if (this.unscheduled[courseID] > 0) {
+				swap(this.courses, this.coursePositions, this.coursePositions[courseID], this.noOfUnscheduledCourses++);
+			}
 		}
 	}
 	
 	
+	/**
+	 * Copy constructor.
+	 * Builds an independent solution with the same timetable (and thereby the same cost).
+	 * @param original - The solution to copy.
+	 */
+	public Solution(Solution original) {
+		this(original.problem);
+		for (int r = 0; r < this.problem.noOfRooms; r++) {
+			for (int t = 0; t < this.problem.noOfTimeslots; t++) {
+				int courseID = original.getCourseID(r, t);
+				if (courseID != EMPTY) {
+					insertLecture(r, t / this.problem.periodsPerDay, t % this.problem.periodsPerDay, courseID);
+				}
+			}
+		}
+		saveSnapshot();
+	}
+	
+	
 	// Public methods
 	
 	/**
@@ -43,25 +106,13 @@ public class Solution {
 	 * @return - A textual visualization of the timetable.
 	 */
 	public String toString() {
-		String output = "Schedule:" + "\n";
-		for (int d = 0; d < this.problem.noOfDays; d++) { // loop days
-			output += "\t Day " + d + "  | ";
-			for (int p = 0; p < this.problem.periodsPerDay; p++) { // loop periods
-				output += String.format("%4s", "P" + p) + " | ";
-			}
+		StringWriter output = new StringWriter();
+		try {
+			new SolutionWriter(output).writeSchedule(this);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // cannot happen for a StringWriter
 		}
-		output += "\n";
-			for (int r = 0; r < this.problem.noOfRooms; r++) { // loop rooms
-				output += "Room " + r;
-				for (int d = 0; d < this.problem.noOfDays; d++) { // loop days
-					output += "\t\t| ";
-					for (int p = 0; p < this.problem.periodsPerDay; p++) { // loop periods
-						output += String.format("%4d", this.timetable[r][d][p]) + " | ";
-					}
-				}
-				output += "\n";
-			}
-		return output;
+		return output.toString();
 	}
 	
 	/**
@@ -72,6 +123,22 @@ public class Solution {
 		return this.costCalculator.costTotal;
 	}
 	
+	/**
+	 * Gets the cost calculator (for reading the penalty counts, e.g. when writing the solution).
+	 * @return - The cost calculator of the solution.
+	 */
+	CostCalculator getCostCalculator() {
+		return this.costCalculator;
+	}
+	
+	/**
+	 * Gets the current count of each penalty.
+	 * @return - The counts in the order of CostCalculator.PENALTY_NAMES.
+	 */
+	public int[] getPenaltyCounts() {
+		return this.costCalculator.getPenaltyCounts();
+	}
+	
 	/**
 	 * Gets the course taught in the given slot in the timetable.
 	 * @param room - The room that are queried.
@@ -80,7 +147,106 @@ public class Solution {
 	 * @return - The courseID of the course that are taught or null if no courses are taught.
 	 */
 	public Integer getCourse(int room, int day, int period) {
-		return this.timetable[room][day][period];
+		int courseID = getCourseID(room, day, period);
+		if (courseID == EMPTY) {
+			return null;
+		}
+		return courseID;
+	}
+	
+	/**
+	 * Gets the course taught in the given slot in the timetable without boxing.
+	 * @param room - The room that are queried.
+	 * @param day - The day that are queried.
+	 * @param period - The period that are queried.
+	 * @return - The courseID of the course that are taught or EMPTY if no courses are taught.
+	 */
+	public int getCourseID(int room, int day, int period) {
+		return this.timetable[room * this.problem.noOfTimeslots + this.problem.calcTimeslotID(day, period)];
+	}
+	
+	/**
+	 * Gets the course taught in the given slot in the timetable without boxing.
+	 * @param room - The room that are queried.
+	 * @param timeslot - The timeslot ID that are queried.
+	 * @return - The courseID of the course that are taught or EMPTY if no courses are taught.
+	 */
+	public int getCourseID(int room, int timeslot) {
+		return this.timetable[room * this.problem.noOfTimeslots + timeslot];
+	}
+	
+	/**
+	 * Gets the no. of lectures of a course that are not scheduled.
+	 * @param courseID - The course ID that are queried.
+	 * @return - The no. of unscheduled lectures.
+	 */
+	public int getUnscheduled(int courseID) {
+		return this.unscheduled[courseID];
+	}
+	
+	/**
+	 * Gets the no. of occupied slots (scheduled lectures).
+	 * @return - The no. of occupied slots.
+	 */
+	public int getNoOfOccupiedSlots() {
+		return this.noOfOccupiedSlots;
+	}
+	
+	/**
+	 * Gets an occupied slot by its index in the list of occupied slots.
+	 * The order changes when lectures are inserted or removed.
+	 * @param i - The index, from 0 to getNoOfOccupiedSlots() - 1.
+	 * @return - The slot (room * noOfTimeslots + timeslot).
+	 */
+	public int getOccupiedSlot(int i) {
+		return this.slots[i];
+	}
+	
+	/**
+	 * Draws a random occupied slot.
+	 * @param random - The random generator to use.
+	 * @return - The slot (room * noOfTimeslots + timeslot) or EMPTY if no lectures are scheduled.
+	 */
+	public int randomOccupiedSlot(SplittableRandom random) {
+		if (this.noOfOccupiedSlots == 0) {
+			return EMPTY;
+		}
+		return this.slots[random.nextInt(this.noOfOccupiedSlots)];
+	}
+	
+	/**
+	 * Draws a random empty slot.
+	 * @param random - The random generator to use.
+	 * @return - The slot (room * noOfTimeslots + timeslot) or EMPTY if the timetable is full.
+	 */
+	public int randomEmptySlot(SplittableRandom random) {
+		int noOfEmptySlots = this.slots.length - this.noOfOccupiedSlots;
+		if (noOfEmptySlots == 0) {
+			return EMPTY;
+		}
+		return this.slots[this.noOfOccupiedSlots + random.nextInt(noOfEmptySlots)];
+	}
+	
+	/**
+	 * Draws a random course that has unscheduled lectures.
+	 * @param random - The random generator to use.
+	 * @return - The course ID or EMPTY if all lectures are scheduled.
+	 */
+	public int randomUnscheduledCourse(SplittableRandom random) {
+		if (this.noOfUnscheduledCourses == 0) {
+			return EMPTY;
+		}
+		return this.courses[random.nextInt(this.noOfUnscheduledCourses)];
+	}
+	
+	/**
+	 * Can the two courses never be taught in the same timeslot (same lecturer or a common curriculum)?
+	 * @param courseA - A course ID.
+	 * @param courseB - Another course ID.
+	 * @return - Whether the courses are in conflict.
+	 */
+	public boolean isConflicting(int courseA, int courseB) {
+		return this.problem.isConflicting(courseA, courseB);
 	}
 	
 	/**
@@ -89,12 +255,12 @@ public class Solution {
 	 * @param day - The day where the lecture should be inserted.
 	 * @param period - The period where the lecture should be inserted.
 	 * @param courseID - The course ID of the lecture that should be inserted.
-	 * @return - The total cost after the insert OR null if the solution is infeasible.
+	 * @return - The total cost after the insert OR INFEASIBLE if the solution is infeasible.
 	 */
-	public Integer insertLecture(int room, int day, int period, int courseID) {
-		Integer totalCost;
+	public int insertLecture(int room, int day, int period, int courseID) {
+		int totalCost;
 		if (!isInsertFeasible(room, day, period, courseID)) {
-			totalCost = null;
+			totalCost = INFEASIBLE;
 		} else {
 			totalCost = costCalculator.updateCostInsert(room, day, period, courseID);
 			updateSolutionInsert(room, day, period, courseID);
@@ -107,13 +273,13 @@ public class Solution {
 	 * @param room - The room where the lecture should be removed.
 	 * @param day - The day where the lecture should be removed.
 	 * @param period - The period where the lecture should be removed.
-	 * @return - The total cost after the remove OR null if the slot in the timetable was empty.
+	 * @return - The total cost after the remove OR INFEASIBLE if the slot in the timetable was empty.
 	 */
-	public Integer removeLecture(int room, int day, int period) {
-		Integer totalCost;
-		Integer courseID = this.timetable[room][day][period];
-		if (courseID == null) {
-			totalCost = null;
+	public int removeLecture(int room, int day, int period) {
+		int totalCost;
+		int courseID = getCourseID(room, day, period);
+		if (courseID == EMPTY) {
+			totalCost = INFEASIBLE;
 		} else {
 			totalCost = costCalculator.updateCostRemove(room, day, period, courseID);
 			updateSolutionRemove(room, day, period, courseID);
@@ -121,22 +287,208 @@ public class Solution {
 		return totalCost;
 	}
 	
+	/**
+	 * Move a lecture from one slot in the timetable to another.
+	 * @param fromRoom - The room where the lecture is scheduled.
+	 * @param fromDay - The day where the lecture is scheduled.
+	 * @param fromPeriod - The period where the lecture is scheduled.
+	 * @param toRoom - The room where the lecture should be moved to.
+	 * @param toDay - The day where the lecture should be moved to.
+	 * @param toPeriod - The period where the lecture should be moved to.
+	 * @return - The total cost after the move OR INFEASIBLE if the move is infeasible.
+	 */
+	public int moveLecture(int fromRoom, int fromDay, int fromPeriod, int toRoom, int toDay, int toPeriod) {
+		if (!isMoveFeasible(fromRoom, fromDay, fromPeriod, toRoom, toDay, toPeriod)) {
+			return INFEASIBLE;
+		}
+		int courseID = getCourseID(fromRoom, fromDay, fromPeriod);
+		costCalculator.updateCostRemove(fromRoom, fromDay, fromPeriod, courseID);
+		updateSolutionRemove(fromRoom, fromDay, fromPeriod, courseID);
+		int totalCost = costCalculator.updateCostInsert(toRoom, toDay, toPeriod, courseID);
+		updateSolutionInsert(toRoom, toDay, toPeriod, courseID);
+		return totalCost;
+	}
+	
+	/**
+	 * Relocate a set of lectures simultaneously, e.g. swap two lectures or the lectures of a Kempe chain.
+	 * All lectures are removed before any of them are inserted, so they may move into each others slots.
+	 * @param noOfLectures - The number of lectures that are relocated.
+	 * @param fromRooms - The room where each lecture is scheduled.
+	 * @param fromTimeslots - The timeslot where each lecture is scheduled.
+	 * @param toRooms - The room where each lecture should be moved to.
+	 * @param toTimeslots - The timeslot where each lecture should be moved to.
+	 * @return - The total cost after the relocation OR INFEASIBLE if the relocation is infeasible.
+	 */
+	public int relocateLectures(int noOfLectures, int[] fromRooms, int[] fromTimeslots, int[] toRooms, int[] toTimeslots) {
+		if (!isRelocationFeasible(noOfLectures, fromRooms, fromTimeslots, toRooms, toTimeslots)) {
+			return INFEASIBLE;
+		}
+		for (int i = 0; i < noOfLectures; i++) {
+			int day = fromTimeslots[i] / this.problem.periodsPerDay;
+			int period = fromTimeslots[i] % this.problem.periodsPerDay;
+			costCalculator.updateCostRemove(fromRooms[i], day, period, this.relocatedCourses[i]);
+			updateSolutionRemove(fromRooms[i], day, period, this.relocatedCourses[i]);
+		}
+		for (int i = 0; i < noOfLectures; i++) {
+			int day = toTimeslots[i] / this.problem.periodsPerDay;
+			int period = toTimeslots[i] % this.problem.periodsPerDay;
+			costCalculator.updateCostInsert(toRooms[i], day, period, this.relocatedCourses[i]);
+			updateSolutionInsert(toRooms[i], day, period, this.relocatedCourses[i]);
+		}
+		return getCost();
+	}
+	
+	/**
+	 * Calculates the change in cost of inserting a lecture, without changing the solution.
+	 * @param room - The room where the lecture would be inserted.
+	 * @param day - The day where the lecture would be inserted.
+	 * @param period - The period where the lecture would be inserted.
+	 * @param courseID - The course ID of the lecture that would be inserted.
+	 * @return - The change in total cost OR INFEASIBLE if the insert is infeasible.
+	 */
+	public int deltaInsertLecture(int room, int day, int period, int courseID) {
+		if (!isInsertFeasible(room, day, period, courseID)) {
+			return INFEASIBLE;
+		}
+		return costCalculator.deltaInsert(room, day, period, courseID);
+	}
+	
+	/**
+	 * Calculates the change in cost of removing a lecture, without changing the solution.
+	 * @param room - The room where the lecture would be removed.
+	 * @param day - The day where the lecture would be removed.
+	 * @param period - The period where the lecture would be removed.
+	 * @return - The change in total cost OR INFEASIBLE if the slot in the timetable is empty.
+	 */
+	public int deltaRemoveLecture(int room, int day, int period) {
+		int courseID = getCourseID(room, day, period);
+		if (courseID == EMPTY) {
+			return INFEASIBLE;
+		}
+		return costCalculator.deltaRemove(room, day, period, courseID);
+	}
+	
+	/**
+	 * Calculates the change in cost of moving a lecture, without changing the solution.
+	 * @param fromRoom - The room where the lecture is scheduled.
+	 * @param fromDay - The day where the lecture is scheduled.
+	 * @param fromPeriod - The period where the lecture is scheduled.
+	 * @param toRoom - The room where the lecture would be moved to.
+	 * @param toDay - The day where the lecture would be moved to.
+	 * @param toPeriod - The period where the lecture would be moved to.
+	 * @return - The change in total cost OR INFEASIBLE if the move is infeasible.
+	 */
+	public int deltaMoveLecture(int fromRoom, int fromDay, int fromPeriod, int toRoom, int toDay, int toPeriod) {
+		if (!isMoveFeasible(fromRoom, fromDay, fromPeriod, toRoom, toDay, toPeriod)) {
+			return INFEASIBLE;
+		}
+		int courseID = getCourseID(fromRoom, fromDay, fromPeriod);
+		return costCalculator.deltaMove(courseID, fromRoom, fromDay, fromPeriod, toRoom, toDay, toPeriod);
+	}
+	
+	/**
+	 * Calculates the change in cost of relocating a set of lectures simultaneously, without changing the solution.
+	 * @param noOfLectures - The number of lectures that would be relocated.
+	 * @param fromRooms - The room where each lecture is scheduled.
+	 * @param fromTimeslots - The timeslot where each lecture is scheduled.
+	 * @param toRooms - The room where each lecture would be moved to.
+	 * @param toTimeslots - The timeslot where each lecture would be moved to.
+	 * @return - The change in total cost OR INFEASIBLE if the relocation is infeasible.
+	 */
+	public int deltaRelocateLectures(int noOfLectures, int[] fromRooms, int[] fromTimeslots, int[] toRooms, int[] toTimeslots) {
+		if (!isRelocationFeasible(noOfLectures, fromRooms, fromTimeslots, toRooms, toTimeslots)) {
+			return INFEASIBLE;
+		}
+		return costCalculator.deltaRelocate(noOfLectures, this.relocatedCourses, fromRooms, fromTimeslots, toRooms, toTimeslots);
+	}
+	
+	/**
+	 * Saves the current state of the solution as the snapshot.
+	 * Only the slots changed since the last snapshot are copied.
+	 */
+	public void saveSnapshot() {
+		for (int i = 0; i < this.noOfChangedSlots; i++) {
+			int slot = this.changedSlots[i];
+			this.snapshotTimetable[slot] = this.timetable[slot];
+			this.isSlotChanged[slot] = false;
+		}
+		this.noOfChangedSlots = 0;
+		this.snapshotCost = getCost();
+	}
+	
+	/**
+	 * Brings the solution (and the cost bookkeeping) back to the state of the snapshot.
+	 * Only the slots changed since the snapshot are touched.
+	 */
+	public void restoreSnapshot() {
+		// Remove lectures that were not there in the snapshot...
+		for (int i = 0; i < this.noOfChangedSlots; i++) {
+			int slot = this.changedSlots[i];
+			int courseID = this.timetable[slot];
+			if (courseID != EMPTY && courseID != this.snapshotTimetable[slot]) {
+				int room = slot / this.problem.noOfTimeslots;
+				int timeslot = slot % this.problem.noOfTimeslots;
+				int day = timeslot / this.problem.periodsPerDay;
+				int period = timeslot % this.problem.periodsPerDay;
+				costCalculator.updateCostRemove(room, day, period, courseID);
+				updateSolutionRemove(room, day, period, courseID);
+			}
+		}
+		// ... and put back the lectures of the snapshot
+		for (int i = 0; i < this.noOfChangedSlots; i++) {
+			int slot = this.changedSlots[i];
+			int courseID = this.snapshotTimetable[slot];
+			if (courseID != EMPTY && courseID != this.timetable[slot]) {
+				int room = slot / this.problem.noOfTimeslots;
+				int timeslot = slot % this.problem.noOfTimeslots;
+				int day = timeslot / this.problem.periodsPerDay;
+				int period = timeslot % this.problem.periodsPerDay;
+				costCalculator.updateCostInsert(room, day, period, courseID);
+				updateSolutionInsert(room, day, period, courseID);
+			}
+			this.isSlotChanged[slot] = false;
+		}
+		this.noOfChangedSlots = 0;
+	}
+	
+	/**
+	 * Builds an independent solution with the timetable of the snapshot (the working timetable is not touched).
+	 * Used to hand the best solution of a running search to another thread.
+	 * @return - The copy.
+	 */
+	public Solution copySnapshot() {
+		Solution copy = new Solution(this.problem);
+		for (int slot = 0; slot < this.snapshotTimetable.length; slot++) {
+			int courseID = this.snapshotTimetable[slot];
+			if (courseID != EMPTY) {
+				int timeslot = slot % this.problem.noOfTimeslots;
+				copy.insertLecture(slot / this.problem.noOfTimeslots, timeslot / this.problem.periodsPerDay, timeslot % this.problem.periodsPerDay, courseID);
+			}
+		}
+		copy.saveSnapshot();
+		return copy;
+	}
+	
+	/**
+	 * Gets the total cost of the snapshot.
+	 * @return - The total cost of the solution when the snapshot was saved.
+	 */
+	public int getSnapshotCost() {
+		return this.snapshotCost;
+	}
+	
 	/**
 	 * Creates the output in the format prescribed by codejudge.compute.dtu.dk.
 	 * @return - The solution in the format prescribed by codejudge.compute.dtu.dk.
 	 */
 	public String codeJudgeOutput() {
-		String output = this.costCalculator.toString();
-		for (int r = 0; r < this.problem.noOfRooms; r++) { // loop rooms
-			for (int d = 0; d < this.problem.noOfDays; d++) { // loop days
-				for (int p = 0; p < this.problem.periodsPerDay; p++) { // loop periods
-					if (this.timetable[r][d][p] != null) {
-						output += String.format("C%04d %d %d R%04d", this.timetable[r][d][p], d, p, r) + "\n";
-					}
-				}
-			}
+		StringWriter output = new StringWriter();
+		try {
+			new SolutionWriter(output).writeCodeJudge(this);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // cannot happen for a StringWriter
 		}
-		return output;
+		return output.toString();
 	}
 	
 	/**
@@ -149,11 +501,33 @@ public class Solution {
 	 */
 	public boolean isCurriculaTaught(int curriculum, int day, int period) {
 		if (period >= 0 && period < problem.periodsPerDay) {
-			return this.curriculaTimeslots[curriculum][day][period];
+			return (this.costCalculator.getCurriculumDayPeriods(curriculum, day) & (1L << period)) != 0;
 		}
 		return false;
 	}
 	
+	/**
+	 * Tests whether the given course can be taught in the given timeslot, i.e. it is available and
+	 * no conflicting course (same lecturer or a common curriculum) is already placed in the timeslot.
+	 * Move generators may use this to only propose feasible targets.
+	 * @param timeslot - The timeslot ID that are queried.
+	 * @param courseID - The course ID that are queried.
+	 * @return - Whether the course can be taught in the timeslot.
+	 */
+	public boolean isTimeslotFeasible(int timeslot, int courseID) {
+		return this.conflictsPlaced[timeslot * this.problem.noOfCourses + courseID] == 0 && !this.problem.isUnavailable(courseID, timeslot);
+	}
+	
+	/**
+	 * Gets the no. of placed lectures in a timeslot that the given course conflicts with.
+	 * @param timeslot - The timeslot ID that are queried.
+	 * @param courseID - The course ID that are queried.
+	 * @return - The no. of conflicting lectures in the timeslot (including lectures of the course itself).
+	 */
+	public int getConflictsPlaced(int timeslot, int courseID) {
+		return this.conflictsPlaced[timeslot * this.problem.noOfCourses + courseID];
+	}
+	
 	
 	// Private methods
 	
@@ -165,18 +539,22 @@ public class Solution {
 	 * @param courseID - The course ID of the lecture that should be inserted.
 	 */
 	private void updateSolutionInsert(int room, int day, int period, int courseID) {
-		Problem.Course course = this.problem.courses.get(courseID);
+		int timeslot = this.problem.calcTimeslotID(day, period);
 		// Register in timetable
-		this.timetable[room][day][period] = courseID;
-		// Register lecturer
-		this.lecturersTimeslots[course.lecturerID][day][period] = true;
-		// Register curricula
-		Iterator<Integer> curricula = course.curricula.iterator();
-		while (curricula.hasNext()) {
-			this.curriculaTimeslots[curricula.next()][day][period] = true;
+		int slot = room * this.problem.noOfTimeslots + timeslot;
+		this.timetable[slot] = courseID;
+		journal(slot);
+		// Register the lecture as a conflict of its neighbours in the conflict graph
+		int offset = timeslot * this.problem.noOfCourses;
+		for (int i = this.problem.conflictOffsets[courseID]; i < this.problem.conflictOffsets[courseID + 1]; i++) {
+			this.conflictsPlaced[offset + this.problem.conflictCourses[i]] += 1;
 		}
 		// Register that we scheduled a lecture
 		this.unscheduled[courseID] += -1;
+		swap(this.slots, this.slotPositions, this.slotPositions[slot], this.noOfOccupiedSlots++);
+		if (this.unscheduled[courseID] == 0) {
+			swap(this.courses, this.coursePositions, this.coursePositions[courseID], --this.noOfUnscheduledCourses);
+		}
 	}
 	
 	/**
@@ -187,18 +565,49 @@ public class Solution {
 	 * @param courseID - The course ID of the lecture that should be removed.
 	 */
 	private void updateSolutionRemove(int room, int day, int period, int courseID) {
-		Problem.Course course = this.problem.courses.get(courseID);
+		int timeslot = this.problem.calcTimeslotID(day, period);
 		// Remove in timetable
-		this.timetable[room][day][period] = null;
-		// Remove lecturer
-		this.lecturersTimeslots[course.lecturerID][day][period] = false;
-		// Remove curricula
-		Iterator<Integer> curricula = course.curricula.iterator();
-		while (curricula.hasNext()) {
-			this.curriculaTimeslots[curricula.next()][day][period] = false;
+		int slot = room * this.problem.noOfTimeslots + timeslot;
+		this.timetable[slot] = EMPTY;
+		journal(slot);
+		// Remove the lecture as a conflict of its neighbours in the conflict graph
+		int offset = timeslot * this.problem.noOfCourses;
+		for (int i = this.problem.conflictOffsets[courseID]; i < this.problem.conflictOffsets[courseID + 1]; i++) {
+			this.conflictsPlaced[offset + this.problem.conflictCourses[i]] += -1;
 		}
 		// Register that we unscheduled a lecture
 		this.unscheduled[courseID] += 1;
+		swap(this.slots, this.slotPositions, this.slotPositions[slot], --this.noOfOccupiedSlots);
+		if (this.unscheduled[courseID] == 1) {
+			swap(this.courses, this.coursePositions, this.coursePositions[courseID], this.noOfUnscheduledCourses++);
+		}
+	}
+	
+	/**
+	 * Swaps two entries of an indexed list and updates their positions.
+	 * @param list - The list (a permutation).
+	 * @param positions - The position of each entry in the list.
+	 * @param i - An index in the list.
+	 * @param j - Another index in the list.
+	 */
+	private static void swap(int[] list, int[] positions, int i, int j) {
+		int a = list[i];
+		int b = list[j];
+		list[i] = b;
+		list[j] = a;
+		positions[b] = i;
+		positions[a] = j;
+	}
+	
+	/**
+	 * Registers that a slot in the timetable has changed since the snapshot.
+	 * @param slot - The changed slot (room * noOfTimeslots + timeslot).
+	 */
+	private void journal(int slot) {
+		if (!this.isSlotChanged[slot]) {
+			this.isSlotChanged[slot] = true;
+			this.changedSlots[this.noOfChangedSlots++] = slot;
+		}
 	}
 	
 	/**
@@ -210,31 +619,103 @@ public class Solution {
 	 * @return - Whether the solution resulting from the insert is feasible.
 	 */
 	private boolean isInsertFeasible(int room, int day, int period, int courseID) {
-		Problem.Course course = this.problem.courses.get(courseID);
+		int timeslot = this.problem.calcTimeslotID(day, period);
 		// Is there another course scheduled in the same room and same timeslot?
-		if (this.timetable[room][day][period] != null) {
+		if (this.timetable[room * this.problem.noOfTimeslots + timeslot] != EMPTY) {
 			return false;
 		}
 		// Is all lectures already scheduled?
 		if (this.unscheduled[courseID] == 0) {
 			return false;
 		}
-		// Is the course available?
-		if (course.unavailability.contains(problem.calcTimeslotID(day, period))) {
+		return isTimeslotFeasible(timeslot, courseID);
+	}
+	
+	/**
+	 * Tests whether a scheduled lecture can be moved to the given slot in the current timetable.
+	 * @param fromRoom - The room where the lecture is scheduled.
+	 * @param fromDay - The day where the lecture is scheduled.
+	 * @param fromPeriod - The period where the lecture is scheduled.
+	 * @param toRoom - The room where the lecture should be moved to.
+	 * @param toDay - The day where the lecture should be moved to.
+	 * @param toPeriod - The period where the lecture should be moved to.
+	 * @return - Whether the solution resulting from the move is feasible (and different).
+	 */
+	private boolean isMoveFeasible(int fromRoom, int fromDay, int fromPeriod, int toRoom, int toDay, int toPeriod) {
+		int fromTimeslot = this.problem.calcTimeslotID(fromDay, fromPeriod);
+		int toTimeslot = this.problem.calcTimeslotID(toDay, toPeriod);
+		int courseID = this.timetable[fromRoom * this.problem.noOfTimeslots + fromTimeslot];
+		// Is there a lecture to move?
+		if (courseID == EMPTY) {
+			return false;
+		}
+		// Is the target slot free? (This also rejects moving a lecture onto itself)
+		if (this.timetable[toRoom * this.problem.noOfTimeslots + toTimeslot] != EMPTY) {
 			return false;
 		}
-		// No courses with the same lecturer at this timeslot?
-		if (this.lecturersTimeslots[course.lecturerID][day][period]) {
+		// Changing room only cannot create any new conflicts
+		if (fromTimeslot == toTimeslot) {
+			return true;
+		}
+		return isTimeslotFeasible(toTimeslot, courseID);
+	}
+	
+	/**
+	 * Tests whether a set of scheduled lectures can be relocated simultaneously.
+	 * On success the course IDs of the lectures are left in relocatedCourses.
+	 * @param noOfLectures - The number of lectures that should be relocated.
+	 * @param fromRooms - The room where each lecture is scheduled.
+	 * @param fromTimeslots - The timeslot where each lecture is scheduled.
+	 * @param toRooms - The room where each lecture should be moved to.
+	 * @param toTimeslots - The timeslot where each lecture should be moved to.
+	 * @return - Whether the solution resulting from the relocation is feasible.
+	 */
+	private boolean isRelocationFeasible(int noOfLectures, int[] fromRooms, int[] fromTimeslots, int[] toRooms, int[] toTimeslots) {
+		if (noOfLectures == 0) {
 			return false;
 		}
-		// No courses with the same curriculum at this timeslot?
-		// NB! This is not constant time (but close) since we need to check for each curriculum.
-		Iterator<Integer> curricula = course.curricula.iterator();
-		while (curricula.hasNext()) {
-			if (this.curriculaTimeslots[curricula.next()][day][period]) {
-				return false;
+		if (this.relocatedCourses.length < noOfLectures) {
+			this.relocatedCourses = new int[noOfLectures];
+		}
+		boolean isFeasible = true;
+		// Every lecture must exist, and no slot may be vacated twice
+		for (int i = 0; i < noOfLectures && isFeasible; i++) {
+			int slot = fromRooms[i] * this.problem.noOfTimeslots + fromTimeslots[i];
+			this.relocatedCourses[i] = this.timetable[slot];
+			isFeasible = this.relocatedCourses[i] != EMPTY && !this.isSlotVacated[slot];
+			this.isSlotVacated[slot] = true;
+		}
+		// Every target slot must be free after the lectures are removed, and no slot may be targeted twice
+		for (int i = 0; i < noOfLectures && isFeasible; i++) {
+			int slot = toRooms[i] * this.problem.noOfTimeslots + toTimeslots[i];
+			isFeasible = !this.isSlotTargeted[slot] && (this.timetable[slot] == EMPTY || this.isSlotVacated[slot]);
+			this.isSlotTargeted[slot] = true;
+		}
+		// Each lecture must be available at its new timeslot and may only conflict with lectures that leave it,
+		// and no two conflicting lectures may be relocated into the same timeslot
+		for (int i = 0; i < noOfLectures && isFeasible; i++) {
+			int courseID = this.relocatedCourses[i];
+			int timeslot = toTimeslots[i];
+			if (this.problem.isUnavailable(courseID, timeslot)) {
+				isFeasible = false;
+				break;
 			}
+			int conflicts = this.conflictsPlaced[timeslot * this.problem.noOfCourses + courseID];
+			for (int j = 0; j < noOfLectures && conflicts >= 0; j++) {
+				if (fromTimeslots[j] == timeslot && this.problem.isConflicting(courseID, this.relocatedCourses[j])) {
+					conflicts += -1;
+				}
+				if (j < i && toTimeslots[j] == timeslot && this.problem.isConflicting(courseID, this.relocatedCourses[j])) {
+					conflicts = -1;
+				}
+			}
+			isFeasible = conflicts == 0;
+		}
+		// Reset the scratch space
+		for (int i = 0; i < noOfLectures; i++) {
+			this.isSlotVacated[fromRooms[i] * this.problem.noOfTimeslots + fromTimeslots[i]] = false;
+			this.isSlotTargeted[toRooms[i] * this.problem.noOfTimeslots + toTimeslots[i]] = false;
 		}
-		return true;
+		return isFeasible;
 	}
 }
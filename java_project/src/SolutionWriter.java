@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streams a solution to a Writer in the CodeJudge format or as the grid view of Solution.toString.
+ * Numbers are formatted by hand into a reusable line buffer, so no strings are built per lecture.
+ * Wrap file and console streams in a BufferedWriter, since every line is written separately.
+ *
+ */
+public class SolutionWriter {
+
+	private Writer writer;
+	private char[] line = new char[64];		// the line being formatted
+	private int length;						// no. of chars in the line
+
+	/**
+	 * Constructor.
+	 * @param writer - Where to write (it is flushed, but not closed, after each solution).
+	 */
+	public SolutionWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Writes the penalty counts followed by one line per lecture: "C<course> <day> <period> R<room>"
+	 * with the course and room IDs zero padded to four digits.
+	 * @param solution - The solution.
+	 * @throws IOException
+	 */
+	public void writeCodeJudge(Solution solution) throws IOException {
+		Problem problem = solution.problem;
+		this.writer.write(solution.getCostCalculator().toString());
+		for (int r = 0; r < problem.noOfRooms; r++) { // loop rooms
+			for (int d = 0; d < problem.noOfDays; d++) { // loop days
+				for (int p = 0; p < problem.periodsPerDay; p++) { // loop periods
+					int courseID = solution.getCourseID(r, d, p);
+					if (courseID == Solution.EMPTY) {
+						continue;
+					}
+					this.length = 0;
+					append('C');
+					appendPadded(courseID, 4, '0');
+					append(' ');
+					appendPadded(d, 1, ' ');
+					append(' ');
+					appendPadded(p, 1, ' ');
+					append(' ');
+					append('R');
+					appendPadded(r, 4, '0');
+					append('\n');
+					this.writer.write(this.line, 0, this.length);
+				}
+			}
+		}
+		this.writer.flush();
+	}
+
+	/**
+	 * Writes the timetable as a grid with a row per room and a column per day and period (see Solution.toString).
+	 * @param solution - The solution.
+	 * @throws IOException
+	 */
+	public void writeSchedule(Solution solution) throws IOException {
+		Problem problem = solution.problem;
+		this.writer.write("Schedule:\n");
+		for (int d = 0; d < problem.noOfDays; d++) { // loop days
+			this.writer.write("\t Day " + d + "  | ");
+			for (int p = 0; p < problem.periodsPerDay; p++) { // loop periods
+				this.length = 0;
+				int digits = countDigits(p);
+				for (int i = digits + 1; i < 4; i++) {
+					append(' ');
+				}
+				append('P');
+				appendPadded(p, 1, ' ');
+				append(' ');
+				append('|');
+				append(' ');
+				this.writer.write(this.line, 0, this.length);
+			}
+		}
+		this.writer.write("\n");
+		for (int r = 0; r < problem.noOfRooms; r++) { // loop rooms
+			this.length = 0;
+			append('R');
+			append('o');
+			append('o');
+			append('m');
+			append(' ');
+			appendPadded(r, 1, ' ');
+			this.writer.write(this.line, 0, this.length);
+			for (int d = 0; d < problem.noOfDays; d++) { // loop days
+				this.writer.write("\t\t| ");
+				for (int p = 0; p < problem.periodsPerDay; p++) { // loop periods
+					int courseID = solution.getCourseID(r, d, p);
+					this.length = 0;
+					if (courseID == Solution.EMPTY) {
+						append('n');
+						append('u');
+						append('l');
+						append('l');
+					} else {
+						appendPadded(courseID, 4, ' ');
+					}
+					append(' ');
+					append('|');
+					append(' ');
+					this.writer.write(this.line, 0, this.length);
+				}
+			}
+			this.writer.write("\n");
+		}
+		this.writer.flush();
+	}
+
+	private void append(char c) {
+		this.line[this.length++] = c;
+	}
+
+	/**
+	 * Appends a non-negative number, padded on the left to the given width.
+	 * @param value - The number.
+	 * @param width - The minimum no. of chars.
+	 * @param padding - The char to pad with ('0' or ' ').
+	 */
+	private void appendPadded(int value, int width, char padding) {
+		int digits = countDigits(value);
+		for (int i = digits; i < width; i++) {
+			append(padding);
+		}
+		int end = this.length + digits;
+		for (int i = end - 1; i >= this.length; i--) {
+			this.line[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		this.length = end;
+	}
+
+	private static int countDigits(int value) {
+		int digits = 1;
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+}
@@ -0,0 +1,173 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Steepest descent for the final intensification: every step scans the full neighbourhood of moving a placed lecture
+ * to any free slot where it is feasible, and applies the most improving move, until a local optimum is reached.
+ * The scan is split over the placed lectures on a fork-join pool. The workers only call the (read-only) delta queries
+ * on the shared solution and keep their own best move, and the bests are reduced when the tasks are joined.
+ * Ties are broken by the slots of the move, so the result does not depend on the no. of threads.
+ * At a local optimum the rooms of every timeslot are reassigned optimally (RoomAssignment.polish), and the descent
+ * continues if that improved the solution.
+ *
+ */
+public class SteepestDescent {
+
+	// Placed lectures scanned by one task before it is not split any further
+	final static int LECTURES_PER_TASK = 8;
+
+	/**
+	 * The best move found in a part of the neighbourhood.
+	 */
+	static class Move {
+		int delta = 0;					// only improving moves are kept
+		int fromSlot = Solution.EMPTY;
+		int toSlot = Solution.EMPTY;
+
+		/**
+		 * Tests whether this move is preferred to another one: it improves more, or as much but has lower slots.
+		 * @param other - The other move.
+		 * @return - Whether this move is preferred.
+		 */
+		boolean isBetterThan(Move other) {
+			if (this.delta != other.delta) {
+				return this.delta < other.delta;
+			}
+			return this.fromSlot != Solution.EMPTY && (other.fromSlot == Solution.EMPTY || this.fromSlot < other.fromSlot
+					|| (this.fromSlot == other.fromSlot && this.toSlot < other.toSlot));
+		}
+	}
+
+	private ForkJoinPool pool;
+	private long steps;
+	private AtomicLong evaluatedMoves = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 * @param noOfThreads - The parallelism of the fork-join pool.
+	 */
+	public SteepestDescent(int noOfThreads) {
+		this.pool = new ForkJoinPool(noOfThreads);
+	}
+
+	/**
+	 * Applies the most improving move (or room polishing) until nothing improves or the deadline is reached.
+	 * @param solution - The solution, which is changed in place.
+	 * @param deadline - The System.nanoTime() after which no new step is started.
+	 * @return - The cost of the solution afterwards.
+	 */
+	public int descend(Solution solution, long deadline) {
+		int cost = solution.getCost();
+		Problem problem = solution.problem;
+		while (System.nanoTime() < deadline) {
+			Move move = this.pool.invoke(new ScanTask(solution, 0, solution.getNoOfOccupiedSlots()));
+			if (move.fromSlot == Solution.EMPTY) {
+				int polishedCost = RoomAssignment.polish(solution);
+				if (polishedCost >= cost) {
+					break; // local optimum
+				}
+				cost = polishedCost;
+				continue;
+			}
+			int fromTimeslot = move.fromSlot % problem.noOfTimeslots;
+			int toTimeslot = move.toSlot % problem.noOfTimeslots;
+			cost = solution.moveLecture(move.fromSlot / problem.noOfTimeslots, fromTimeslot / problem.periodsPerDay, fromTimeslot % problem.periodsPerDay,
+					move.toSlot / problem.noOfTimeslots, toTimeslot / problem.periodsPerDay, toTimeslot % problem.periodsPerDay);
+			this.steps++;
+		}
+		return cost;
+	}
+
+	/**
+	 * Stops the threads of the pool.
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * Gets the no. of moves applied.
+	 * @return - The no. of steps.
+	 */
+	public long getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * Gets the no. of moves whose delta was calculated.
+	 * @return - The no. of evaluated moves.
+	 */
+	public long getEvaluatedMoves() {
+		return this.evaluatedMoves.get();
+	}
+
+	/**
+	 * Finds the best move of the placed lectures in a range of Solution.getOccupiedSlot.
+	 */
+	private class ScanTask extends RecursiveTask<Move> {
+
+		private static final long serialVersionUID = 1L;
+		private final Solution solution;
+		private final int from, to;		// range of occupied slot indices
+
+		ScanTask(Solution solution, int from, int to) {
+			this.solution = solution;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Move compute() {
+			if (this.to - this.from <= LECTURES_PER_TASK) {
+				return scan();
+			}
+			int middle = (this.from + this.to) >>> 1;
+			ScanTask left = new ScanTask(this.solution, this.from, middle);
+			left.fork();
+			Move right = new ScanTask(this.solution, middle, this.to).compute();
+			Move best = left.join();
+			return right.isBetterThan(best) ? right : best;
+		}
+
+		/**
+		 * Evaluates every move of the lectures in the range.
+		 * @return - The best improving move (or a move without a lecture if none improves).
+		 */
+		private Move scan() {
+			Problem problem = this.solution.problem;
+			int noOfTimeslots = problem.noOfTimeslots;
+			int periodsPerDay = problem.periodsPerDay;
+			Move best = new Move();
+			Move candidate = new Move();
+			int noOfEvaluated = 0;
+			for (int i = this.from; i < this.to; i++) {
+				int fromSlot = this.solution.getOccupiedSlot(i);
+				int fromRoom = fromSlot / noOfTimeslots;
+				int fromTimeslot = fromSlot % noOfTimeslots;
+				int courseID = this.solution.getCourseID(fromRoom, fromTimeslot);
+				for (int toTimeslot = 0; toTimeslot < noOfTimeslots; toTimeslot++) {
+					if (toTimeslot != fromTimeslot && !this.solution.isTimeslotFeasible(toTimeslot, courseID)) {
+						continue; // no room in the timeslot is feasible
+					}
+					for (int toRoom = 0; toRoom < problem.noOfRooms; toRoom++) {
+						if (this.solution.getCourseID(toRoom, toTimeslot) != Solution.EMPTY) {
+							continue;
+						}
+						candidate.delta = this.solution.deltaMoveLecture(fromRoom, fromTimeslot / periodsPerDay, fromTimeslot % periodsPerDay,
+								toRoom, toTimeslot / periodsPerDay, toTimeslot % periodsPerDay);
+						candidate.fromSlot = fromSlot;
+						candidate.toSlot = toRoom * noOfTimeslots + toTimeslot;
+						noOfEvaluated++;
+						if (candidate.delta != Solution.INFEASIBLE && candidate.delta < 0 && candidate.isBetterThan(best)) {
+							Move swap = best;
+							best = candidate;
+							candidate = swap;
+						}
+					}
+				}
+			}
+			evaluatedMoves.addAndGet(noOfEvaluated);
+			return best;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+import java.util.SplittableRandom;
+
+/**
+ * Represents swapping two random scheduled lectures in different timeslots (each takes the others room and timeslot).
+ *
+ */
+public class SwapLectures extends RelocationAction {
+
+	/*
+	 * Constructor.
+	 * @param solution - The solution to act on.
+	 * @param randomGenerator - The random generator of the search that owns this action.
+	 */
+	public SwapLectures(Solution solution, SplittableRandom randomGenerator) {
+		super(solution, randomGenerator, 2);
+		randomize();
+	}
+	
+	/*
+	 * Draws a new random swap.
+	 */
+	public void randomize() {
+		this.noOfLectures = 0;
+		int noOfTimeslots = solution.problem.noOfTimeslots;
+		int slotA = solution.randomOccupiedSlot(randomGenerator);
+		int slotB = solution.randomOccupiedSlot(randomGenerator); // (moving into a free slot is handled by MoveLecture)
+		if (slotA == Solution.EMPTY || slotA % noOfTimeslots == slotB % noOfTimeslots) {
+			return; // Same timeslot is handled by RoomSwap
+		}
+		int roomA = slotA / noOfTimeslots, timeslotA = slotA % noOfTimeslots;
+		int roomB = slotB / noOfTimeslots, timeslotB = slotB % noOfTimeslots;
+		add(roomA, timeslotA, roomB, timeslotB);
+		add(roomB, timeslotB, roomA, timeslotA);
+	}
+}
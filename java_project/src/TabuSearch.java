@@ -0,0 +1,260 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Tabu search: every iteration samples a list of candidate moves, evaluates them with the delta functions
+ * and executes the best one that is not tabu, also when it makes the solution worse.
+ * Moving a lecture out of a timeslot makes it tabu to move the course back into that timeslot for a while,
+ * and a move within a timeslot does the same for the room. A tabu move is still allowed if it gives a new best (aspiration).
+ * The tabu memory is a flat expiry array per kind, so a check is a single array read.
+ *
+ */
+public class TabuSearch extends Search {
+
+	// Kinds of candidate moves
+	final static int MOVE = 0;					// a lecture to an empty slot
+	final static int SWAP = 1;					// two lectures trade slots
+	final static int INSERT = 2;				// an unscheduled lecture into an empty slot
+	final static String[] MOVE_TYPES = {"Move", "Swap", "Insert"};
+	// Candidates evaluated per iteration
+	final static int NO_OF_CANDIDATES = 128;
+	// Target slots drawn for a move before settling for an infeasible one
+	final static int MAX_TARGET_TRIES = 3;
+	final static int MIN_TENURE = 3;
+
+	private Solution solution;
+	private Problem problem;
+	private int cost;
+	private int bestCost;						// cost of the snapshot kept in the solution
+	private int countStep;						// the iteration the expiries are compared to
+	private int[] timeslotExpiry;				// courseID * noOfTimeslots + timeslot	-> iteration where moving the course into the timeslot is allowed again
+	private int[] roomExpiry;					// courseID * noOfRooms + room			-> iteration where moving the course into the room is allowed again
+	private int timeslotTenure;
+	private int roomTenure;
+	// The move under evaluation (and the chosen one)
+	private int[] fromRooms = new int[2], fromTimeslots = new int[2], toRooms = new int[2], toTimeslots = new int[2];
+
+	/**
+	 * Constructor.
+	 * @param initialSolution - The solution to start from.
+	 * @param outputInfo - Whether to print improvements.
+	 * @param random - The random generator of the search.
+	 */
+	public TabuSearch(Solution initialSolution, boolean outputInfo, SplittableRandom random) {
+		super(outputInfo, random);
+		this.solution = initialSolution;
+		this.problem = initialSolution.problem;
+		this.cost = initialSolution.getCost();
+		this.bestCost = this.cost;
+		initialSolution.saveSnapshot();
+		this.timeslotExpiry = new int[this.problem.noOfCourses * this.problem.noOfTimeslots];
+		this.roomExpiry = new int[this.problem.noOfCourses * this.problem.noOfRooms];
+		// The more lectures there are, the longer a course must stay away from where it was
+		int noOfLectures = 0;
+		for (int courseID = 0; courseID < this.problem.noOfCourses; courseID++) {
+			noOfLectures += this.problem.courseLectures[courseID];
+		}
+		this.timeslotTenure = Math.max(MIN_TENURE, (int) Math.round(Math.sqrt(noOfLectures)));
+		this.roomTenure = Math.max(MIN_TENURE, this.problem.noOfRooms / 2);
+		setMoveTypes(initialSolution, MOVE_TYPES);
+		output("Initial cost: " + this.cost + " (tenure " + this.timeslotTenure + "/" + this.roomTenure + ")");
+	}
+
+	public void iterate() {
+		if (++this.countStep == Integer.MAX_VALUE - this.timeslotTenure - this.roomTenure) { // start over before the expiries overflow
+			Arrays.fill(this.timeslotExpiry, 0);
+			Arrays.fill(this.roomExpiry, 0);
+			this.countStep = 1;
+		}
+		int bestKind = -1, bestSlotA = 0, bestSlotB = 0, bestCourse = 0;
+		int bestDelta = Integer.MAX_VALUE;
+		for (int candidate = 0; candidate < NO_OF_CANDIDATES; candidate++) {
+			int kind, slotA, slotB, courseID = Solution.EMPTY;
+			int unscheduledCourse = this.solution.randomUnscheduledCourse(this.random);
+			if (unscheduledCourse != Solution.EMPTY && this.random.nextInt(4) == 0) {
+				kind = INSERT;
+				courseID = unscheduledCourse;
+				slotA = Solution.EMPTY;
+				slotB = randomTarget(courseID, -1);
+			} else {
+				slotA = this.solution.randomOccupiedSlot(this.random);
+				if (slotA == Solution.EMPTY) {
+					continue;
+				}
+				if (this.random.nextBoolean()) {
+					kind = MOVE;
+					slotB = randomTarget(getCourseID(slotA), slotA % this.problem.noOfTimeslots);
+				} else {
+					kind = SWAP;
+					slotB = this.solution.randomOccupiedSlot(this.random);
+				}
+			}
+			if (slotB == Solution.EMPTY || slotA == slotB) {
+				continue;
+			}
+			int delta = evaluate(kind, slotA, slotB, courseID);
+			if (delta == Solution.INFEASIBLE || delta >= bestDelta) {
+				continue;
+			}
+			if (isTabu(kind, slotA, slotB, courseID) && this.cost + delta >= this.bestCost) {
+				continue; // tabu and no new best
+			}
+			bestKind = kind;
+			bestSlotA = slotA;
+			bestSlotB = slotB;
+			bestCourse = courseID;
+			bestDelta = delta;
+		}
+		if (bestKind == -1) {
+			countIteration(Solution.INFEASIBLE, false);
+			return;
+		}
+		setMoveType(bestKind);
+		countIteration(bestDelta, true);
+		makeTabu(bestKind, bestSlotA, bestSlotB);
+		this.cost = execute(bestKind, bestSlotA, bestSlotB, bestCourse);
+		if (this.cost < this.bestCost) {
+			this.bestCost = this.cost;
+			this.solution.saveSnapshot();
+			recordBest(this.solution);
+			if (shouldOutputInfo()) {
+				output("Step " + this.countStep + ": Improving to " + this.cost);
+			}
+		}
+	}
+
+	public Solution getBestSolution() {
+		if (this.cost != this.bestCost) {
+			this.solution.restoreSnapshot();
+			this.cost = this.solution.getCost();
+		}
+		return this.solution;
+	}
+
+	public int getBestCost() {
+		return this.bestCost;
+	}
+
+	/**
+	 * Draws an empty slot, redrawn a bounded no. of times until the course can be taught there.
+	 * @param courseID - The course to place.
+	 * @param fromTimeslot - The timeslot the lecture is in now (it does not conflict with itself), or -1.
+	 * @return - The slot, or Solution.EMPTY if the timetable is full.
+	 */
+	private int randomTarget(int courseID, int fromTimeslot) {
+		int slot = this.solution.randomEmptySlot(this.random);
+		for (int tries = 1; tries < MAX_TARGET_TRIES && slot != Solution.EMPTY; tries++) {
+			int timeslot = slot % this.problem.noOfTimeslots;
+			if (timeslot == fromTimeslot || this.solution.isTimeslotFeasible(timeslot, courseID)) {
+				break;
+			}
+			slot = this.solution.randomEmptySlot(this.random);
+		}
+		return slot;
+	}
+
+	/**
+	 * Calculates the change in cost of a candidate without changing the solution.
+	 * @return - The change in total cost OR Solution.INFEASIBLE if the candidate is infeasible.
+	 */
+	private int evaluate(int kind, int slotA, int slotB, int courseID) {
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int periodsPerDay = this.problem.periodsPerDay;
+		int timeslotB = slotB % noOfTimeslots;
+		switch (kind) {
+		case INSERT:
+			if (!this.solution.isTimeslotFeasible(timeslotB, courseID)) {
+				return Solution.INFEASIBLE;
+			}
+			return this.solution.deltaInsertLecture(slotB / noOfTimeslots, timeslotB / periodsPerDay, timeslotB % periodsPerDay, courseID);
+		case MOVE:
+			int timeslotA = slotA % noOfTimeslots;
+			return this.solution.deltaMoveLecture(slotA / noOfTimeslots, timeslotA / periodsPerDay, timeslotA % periodsPerDay,
+					slotB / noOfTimeslots, timeslotB / periodsPerDay, timeslotB % periodsPerDay);
+		default: // SWAP
+			setSwap(slotA, slotB);
+			return this.solution.deltaRelocateLectures(2, this.fromRooms, this.fromTimeslots, this.toRooms, this.toTimeslots);
+		}
+	}
+
+	/**
+	 * Executes a candidate.
+	 * @return - The total cost after the candidate.
+	 */
+	private int execute(int kind, int slotA, int slotB, int courseID) {
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int periodsPerDay = this.problem.periodsPerDay;
+		int timeslotB = slotB % noOfTimeslots;
+		switch (kind) {
+		case INSERT:
+			return this.solution.insertLecture(slotB / noOfTimeslots, timeslotB / periodsPerDay, timeslotB % periodsPerDay, courseID);
+		case MOVE:
+			int timeslotA = slotA % noOfTimeslots;
+			return this.solution.moveLecture(slotA / noOfTimeslots, timeslotA / periodsPerDay, timeslotA % periodsPerDay,
+					slotB / noOfTimeslots, timeslotB / periodsPerDay, timeslotB % periodsPerDay);
+		default: // SWAP
+			setSwap(slotA, slotB);
+			return this.solution.relocateLectures(2, this.fromRooms, this.fromTimeslots, this.toRooms, this.toTimeslots);
+		}
+	}
+
+	/**
+	 * Tests whether a candidate moves a course into a timeslot (or, within its timeslot, a room) that is tabu for it.
+	 * @return - Whether the candidate is tabu.
+	 */
+	private boolean isTabu(int kind, int slotA, int slotB, int courseID) {
+		if (kind == INSERT) {
+			return isCourseTabu(courseID, -1, slotB);
+		}
+		int courseA = getCourseID(slotA);
+		if (kind == MOVE) {
+			return isCourseTabu(courseA, slotA, slotB);
+		}
+		return isCourseTabu(courseA, slotA, slotB) || isCourseTabu(getCourseID(slotB), slotB, slotA);
+	}
+
+	private boolean isCourseTabu(int courseID, int fromSlot, int toSlot) {
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int toTimeslot = toSlot % noOfTimeslots;
+		if (fromSlot == -1 || fromSlot % noOfTimeslots != toTimeslot) {
+			return this.timeslotExpiry[courseID * noOfTimeslots + toTimeslot] > this.countStep;
+		}
+		return this.roomExpiry[courseID * this.problem.noOfRooms + toSlot / noOfTimeslots] > this.countStep;
+	}
+
+	/**
+	 * Makes it tabu for the courses of a candidate (before it is executed) to return to where they are.
+	 */
+	private void makeTabu(int kind, int slotA, int slotB) {
+		if (kind == INSERT) {
+			return;
+		}
+		makeCourseTabu(getCourseID(slotA), slotA, slotB);
+		if (kind == SWAP) {
+			makeCourseTabu(getCourseID(slotB), slotB, slotA);
+		}
+	}
+
+	private void makeCourseTabu(int courseID, int fromSlot, int toSlot) {
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		int fromTimeslot = fromSlot % noOfTimeslots;
+		// The tenure varies a little, so the search does not cycle with a fixed period
+		if (fromTimeslot != toSlot % noOfTimeslots) {
+			this.timeslotExpiry[courseID * noOfTimeslots + fromTimeslot] = this.countStep + this.timeslotTenure + this.random.nextInt(MIN_TENURE);
+		} else {
+			this.roomExpiry[courseID * this.problem.noOfRooms + fromSlot / noOfTimeslots] = this.countStep + this.roomTenure + this.random.nextInt(MIN_TENURE);
+		}
+	}
+
+	private int getCourseID(int slot) {
+		return this.solution.getCourseID(slot / this.problem.noOfTimeslots, slot % this.problem.noOfTimeslots);
+	}
+
+	private void setSwap(int slotA, int slotB) {
+		int noOfTimeslots = this.problem.noOfTimeslots;
+		this.fromRooms[0] = this.toRooms[1] = slotA / noOfTimeslots;
+		this.fromTimeslots[0] = this.toTimeslots[1] = slotA % noOfTimeslots;
+		this.fromRooms[1] = this.toRooms[0] = slotB / noOfTimeslots;
+		this.fromTimeslots[1] = this.toTimeslots[0] = slotB % noOfTimeslots;
+	}
+}
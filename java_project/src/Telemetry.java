@@ -0,0 +1,167 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The counters of a single search (and thereby a single thread), sampled by a TelemetryReporter.
+ * Only the owning thread writes the counters (with lazySet, i.e. a plain store), so counting is cheap
+ * and the reporter never has to synchronize with the search.
+ *
+ */
+public class Telemetry {
+
+	// Outcome of an iteration
+	final static int ACCEPTED = 0;
+	final static int REJECTED = 1;
+	final static int INFEASIBLE = 2;
+	final static int NO_OF_OUTCOMES = 3;
+	final static String[] OUTCOME_NAMES = {"accepted", "rejected", "infeasible"};
+	// Room for the move types (neighbourhoods) of a search
+	final static int MAX_MOVE_TYPES = 8;
+
+	public final String name;
+	private final long startTime;					// System.nanoTime() that times are measured from
+	private volatile String[] moveTypes = new String[0];
+	private final AtomicLongArray counts;			// moveType * NO_OF_OUTCOMES + outcome	-> no. of iterations
+	private volatile Best best;
+	private volatile long noOfRestarts;
+
+	/**
+	 * The best solution seen, published as a whole so the reporter never sees a half updated record.
+	 */
+	static class Best {
+		final int cost;
+		final long time;		// nanoseconds after the start
+		final int[] penalties;	// see CostCalculator.getPenaltyCounts
+
+		Best(int cost, long time, int[] penalties) {
+			this.cost = cost;
+			this.time = time;
+			this.penalties = penalties;
+		}
+	}
+
+	/**
+	 * Constructor (use TelemetryReporter.register).
+	 * @param name - The name of the search (e.g. the worker).
+	 * @param startTime - The System.nanoTime() that times are measured from.
+	 */
+	Telemetry(String name, long startTime) {
+		this.name = name;
+		this.startTime = startTime;
+		this.counts = new AtomicLongArray(MAX_MOVE_TYPES * NO_OF_OUTCOMES);
+	}
+
+	/**
+	 * Sets the names of the move types that are counted.
+	 * @param moveTypes - The name of each move type (neighbourhood), at most MAX_MOVE_TYPES.
+	 */
+	void setMoveTypes(String[] moveTypes) {
+		if (moveTypes.length > MAX_MOVE_TYPES) {
+			throw new IllegalArgumentException("At most " + MAX_MOVE_TYPES + " move types are supported");
+		}
+		this.moveTypes = moveTypes.clone();
+	}
+
+	String[] getMoveTypes() {
+		return this.moveTypes;
+	}
+
+	/**
+	 * Counts an iteration (only called by the owning thread).
+	 * @param moveType - The index of the move type.
+	 * @param outcome - ACCEPTED, REJECTED or INFEASIBLE.
+	 */
+	void count(int moveType, int outcome) {
+		int i = moveType * NO_OF_OUTCOMES + outcome;
+		this.counts.lazySet(i, this.counts.get(i) + 1);
+	}
+
+	/**
+	 * Gets the no. of iterations of a move type with a given outcome.
+	 * @param moveType - The index of the move type.
+	 * @param outcome - ACCEPTED, REJECTED or INFEASIBLE.
+	 * @return - The no. of iterations.
+	 */
+	long getCount(int moveType, int outcome) {
+		return this.counts.get(moveType * NO_OF_OUTCOMES + outcome);
+	}
+
+	/**
+	 * Gets the total no. of counted iterations.
+	 * @return - The no. of iterations.
+	 */
+	long getIterations() {
+		long iterations = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			iterations += this.counts.get(i);
+		}
+		return iterations;
+	}
+
+	/**
+	 * Records a new best solution (only called by the owning thread).
+	 * @param solution - The solution, which cost is the new best.
+	 */
+	void recordBest(Solution solution) {
+		this.best = new Best(solution.getCost(), System.nanoTime() - this.startTime, solution.getPenaltyCounts());
+		ImprovementEvent event = new ImprovementEvent();
+		if (event.isEnabled()) {
+			event.search = this.name;
+			event.cost = solution.getCost();
+			event.iteration = getIterations();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Records that the search was restarted from another solution (only called by the owning thread).
+	 * @param fromCost - The best cost of the search before the restart.
+	 * @param toCost - The cost of the solution it restarts from.
+	 */
+	void recordRestart(int fromCost, int toCost) {
+		this.noOfRestarts = this.noOfRestarts + 1;
+		RestartEvent event = new RestartEvent();
+		if (event.isEnabled()) {
+			event.search = this.name;
+			event.fromCost = fromCost;
+			event.toCost = toCost;
+			event.commit();
+		}
+	}
+
+	Best getBest() {
+		return this.best;
+	}
+
+	long getRestarts() {
+		return this.noOfRestarts;
+	}
+
+	@Name("timetabling.Improvement")
+	@Label("Improvement")
+	@Category("Timetabling")
+	static class ImprovementEvent extends Event {
+		@Label("Search")
+		String search;
+		@Label("Cost")
+		int cost;
+		@Label("Iteration")
+		long iteration;
+	}
+
+	@Name("timetabling.Restart")
+	@Label("Restart")
+	@Category("Timetabling")
+	static class RestartEvent extends Event {
+		@Label("Search")
+		String search;
+		@Label("Cost before restart")
+		int fromCost;
+		@Label("Cost restarted from")
+		int toCost;
+	}
+}
@@ -0,0 +1,233 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the telemetry of all registered searches on a background thread at a fixed interval,
+ * so the searches themselves never print or aggregate anything.
+ * The samples (a timeline of the iterations, the moves and the best cost) can be exported as CSV or JSON.
+ *
+ */
+public class TelemetryReporter {
+
+	private final long startTime;			// System.nanoTime() that all times are measured from
+	private final long interval;			// milliseconds between samples
+	private final List<Telemetry> telemetries = new CopyOnWriteArrayList<Telemetry>();
+	private final List<Sample> samples = new ArrayList<Sample>();
+	private ScheduledExecutorService executor;
+
+	/**
+	 * The sum over all searches at one point in time.
+	 */
+	static class Sample {
+		double time;						// seconds after the start
+		long iterations;
+		double iterationsPerSecond;			// since the previous sample
+		long restarts;
+		Map<String, long[]> moves = new LinkedHashMap<String, long[]>();	// move type	-> no. of iterations per outcome
+		Telemetry.Best best;				// null until a search has improved
+	}
+
+	/**
+	 * Constructor.
+	 * @param interval - The time between samples in milliseconds.
+	 */
+	public TelemetryReporter(long interval) {
+		this.startTime = System.nanoTime();
+		this.interval = interval;
+	}
+
+	/**
+	 * Creates the telemetry of a search. Every search (thread) must have its own.
+	 * @param name - The name of the search.
+	 * @return - The telemetry, to be given to Search.setTelemetry.
+	 */
+	public Telemetry register(String name) {
+		Telemetry telemetry = new Telemetry(name, this.startTime);
+		this.telemetries.add(telemetry);
+		return telemetry;
+	}
+
+	/**
+	 * Starts sampling on a background (daemon) thread.
+	 */
+	public synchronized void start() {
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "telemetry-reporter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.executor.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				sample();
+			}
+		}, this.interval, this.interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops sampling and takes a final sample.
+	 * @throws InterruptedException
+	 */
+	public void stop() throws InterruptedException {
+		ScheduledExecutorService executor;
+		synchronized (this) {
+			executor = this.executor;
+			this.executor = null;
+		}
+		if (executor != null) {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		sample();
+	}
+
+	/**
+	 * Sums the counters of all searches and adds the result to the timeline.
+	 */
+	synchronized void sample() {
+		Sample sample = new Sample();
+		sample.time = (System.nanoTime() - this.startTime) / 1e9;
+		for (Telemetry telemetry : this.telemetries) {
+			String[] moveTypes = telemetry.getMoveTypes();
+			for (int moveType = 0; moveType < moveTypes.length; moveType++) {
+				long[] counts = sample.moves.get(moveTypes[moveType]);
+				if (counts == null) {
+					counts = new long[Telemetry.NO_OF_OUTCOMES];
+					sample.moves.put(moveTypes[moveType], counts);
+				}
+				for (int outcome = 0; outcome < Telemetry.NO_OF_OUTCOMES; outcome++) {
+					long count = telemetry.getCount(moveType, outcome);
+					counts[outcome] += count;
+					sample.iterations += count;
+				}
+			}
+			sample.restarts += telemetry.getRestarts();
+			Telemetry.Best best = telemetry.getBest();
+			if (best != null && (sample.best == null || best.cost < sample.best.cost)) {
+				sample.best = best;
+			}
+		}
+		Sample previous = this.samples.isEmpty() ? null : this.samples.get(this.samples.size() - 1);
+		double elapsed = previous == null ? sample.time : sample.time - previous.time;
+		long iterations = previous == null ? sample.iterations : sample.iterations - previous.iterations;
+		sample.iterationsPerSecond = elapsed > 0 ? iterations / elapsed : 0;
+		this.samples.add(sample);
+	}
+
+	/**
+	 * Gets the latest sample.
+	 * @return - The latest sample, or null if none has been taken.
+	 */
+	synchronized Sample getLatest() {
+		return this.samples.isEmpty() ? null : this.samples.get(this.samples.size() - 1);
+	}
+
+	/**
+	 * Writes the timeline as CSV with one row per sample.
+	 * Columns: time, iterations, iterations per second, restarts, best cost, time to best,
+	 * the best solution's count of each penalty and the no. of iterations of each move type and outcome.
+	 * @param writer - Where to write.
+	 * @throws IOException
+	 */
+	public synchronized void writeCsv(Writer writer) throws IOException {
+		List<String> moveTypes = getMoveTypes();
+		writer.write("time,iterations,iterationsPerSecond,restarts,bestCost,timeToBest");
+		for (String penalty : CostCalculator.PENALTY_NAMES) {
+			writer.write("," + penalty);
+		}
+		for (String moveType : moveTypes) {
+			for (String outcome : Telemetry.OUTCOME_NAMES) {
+				writer.write("," + moveType + "." + outcome);
+			}
+		}
+		writer.write("\n");
+		for (Sample sample : this.samples) {
+			writer.write(format(sample.time) + "," + sample.iterations + "," + format(sample.iterationsPerSecond) + "," + sample.restarts);
+			if (sample.best == null) {
+				writer.write(",,");
+				for (int i = 0; i < CostCalculator.PENALTY_NAMES.length; i++) {
+					writer.write(",");
+				}
+			} else {
+				writer.write("," + sample.best.cost + "," + format(sample.best.time / 1e9));
+				for (int count : sample.best.penalties) {
+					writer.write("," + count);
+				}
+			}
+			for (String moveType : moveTypes) {
+				long[] counts = sample.moves.get(moveType);
+				for (int outcome = 0; outcome < Telemetry.NO_OF_OUTCOMES; outcome++) {
+					writer.write("," + (counts == null ? 0 : counts[outcome]));
+				}
+			}
+			writer.write("\n");
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the timeline as a JSON array with one object per sample.
+	 * @param writer - Where to write.
+	 * @throws IOException
+	 */
+	public synchronized void writeJson(Writer writer) throws IOException {
+		writer.write("[");
+		for (int i = 0; i < this.samples.size(); i++) {
+			Sample sample = this.samples.get(i);
+			writer.write(i == 0 ? "\n" : ",\n");
+			writer.write("  {\"time\": " + format(sample.time) + ", \"iterations\": " + sample.iterations
+					+ ", \"iterationsPerSecond\": " + format(sample.iterationsPerSecond) + ", \"restarts\": " + sample.restarts);
+			if (sample.best != null) {
+				writer.write(", \"bestCost\": " + sample.best.cost + ", \"timeToBest\": " + format(sample.best.time / 1e9) + ", \"penalties\": {");
+				for (int p = 0; p < CostCalculator.PENALTY_NAMES.length; p++) {
+					writer.write((p == 0 ? "" : ", ") + "\"" + CostCalculator.PENALTY_NAMES[p] + "\": " + sample.best.penalties[p]);
+				}
+				writer.write("}");
+			}
+			writer.write(", \"moves\": {");
+			boolean isFirst = true;
+			for (Map.Entry<String, long[]> move : sample.moves.entrySet()) {
+				writer.write((isFirst ? "" : ", ") + "\"" + move.getKey() + "\": {");
+				for (int outcome = 0; outcome < Telemetry.NO_OF_OUTCOMES; outcome++) {
+					writer.write((outcome == 0 ? "" : ", ") + "\"" + Telemetry.OUTCOME_NAMES[outcome] + "\": " + move.getValue()[outcome]);
+				}
+				writer.write("}");
+				isFirst = false;
+			}
+			writer.write("}}");
+		}
+		writer.write("\n]\n");
+		writer.flush();
+	}
+
+	/**
+	 * Gets the move types of all samples in the order they were first seen.
+	 * @return - The names of the move types.
+	 */
+	private List<String> getMoveTypes() {
+		List<String> moveTypes = new ArrayList<String>();
+		for (Sample sample : this.samples) {
+			for (String moveType : sample.moves.keySet()) {
+				if (!moveTypes.contains(moveType)) {
+					moveTypes.add(moveType);
+				}
+			}
+		}
+		return moveTypes;
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+}
@@ -0,0 +1,25 @@
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs a short version of the randomized differential check of CostValidator on every instance:
+ * the predicted deltas of inserts, removes, swaps and the actions of the searches must match the actual change in cost,
+ * and the bookkeeping must match a recomputation from scratch (java CostValidator runs the long version).
+ *
+ */
+public class CostValidatorTest {
+
+	final static int NO_OF_INSTANCES = 13;
+	final static long OPERATIONS_PER_INSTANCE = 10000;
+	final static long SEED = 1;
+
+	@Test
+	public void deltasMatchRecomputation() throws IOException {
+		for (int instance = 1; instance <= NO_OF_INSTANCES; instance++) {
+			Problem problem = Main.loadProblem(String.format("TestDataUTT/Test%02d/", instance), Main.DATA_FILES);
+			CostValidator.checkInstance(problem, OPERATIONS_PER_INSTANCE, new SplittableRandom(SEED + instance));
+		}
+	}
+}
@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a problem restored from the cache equals the parsed problem, and that the cache is rebuilt
+ * when the data files change or the cache file is corrupt. Works on copies of the data files in a temporary directory.
+ *
+ */
+public class ProblemCacheTest {
+
+	final static int NO_OF_INSTANCES = 13;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void cachedProblemEqualsParsedProblem() throws IOException {
+		for (int instance = 1; instance <= NO_OF_INSTANCES; instance++) {
+			String source = String.format("TestDataUTT/Test%02d/", instance);
+			String dataLocation = copyInstance(source, "Test" + instance);
+			Problem parsed = new Problem(source, Main.DATA_FILES);
+			ProblemLoadTest.assertSameProblem(source, parsed, ProblemCache.load(dataLocation, Main.DATA_FILES, false)); // miss
+			Problem cached = ProblemCache.read(Paths.get(dataLocation, ProblemCache.FILE_NAME), ProblemCache.key(dataLocation, Main.DATA_FILES));
+			assertNotNull(cached, source);
+			ProblemLoadTest.assertSameProblem(source, parsed, cached);
+			ProblemLoadTest.assertSameProblem(source, parsed, ProblemCache.load(dataLocation, Main.DATA_FILES, false)); // hit
+		}
+	}
+
+	@Test
+	public void changedDataFilesRebuildTheCache() throws IOException {
+		String dataLocation = copyInstance("TestDataUTT/Test07/", "instance");
+		ProblemCache.load(dataLocation, Main.DATA_FILES, false);
+		long staleKey = ProblemCache.key(dataLocation, Main.DATA_FILES);
+		// Replace the data files by those of another instance (with a later modification time)
+		FileTime later = FileTime.fromMillis(System.currentTimeMillis() + 60000);
+		for (String file : Main.DATA_FILES) {
+			Path target = Paths.get(dataLocation + file);
+			Files.copy(Paths.get("TestDataUTT/Test08/" + file), target, StandardCopyOption.REPLACE_EXISTING);
+			Files.setLastModifiedTime(target, later);
+		}
+		long key = ProblemCache.key(dataLocation, Main.DATA_FILES);
+		Path cacheFile = Paths.get(dataLocation, ProblemCache.FILE_NAME);
+		assertNull(ProblemCache.read(cacheFile, key), "the stale cache was accepted");
+		ProblemLoadTest.assertSameProblem("Test08", new Problem("TestDataUTT/Test08/", Main.DATA_FILES), ProblemCache.load(dataLocation, Main.DATA_FILES, false));
+		assertNotNull(ProblemCache.read(cacheFile, key), "the cache was not rebuilt");
+		assertNull(ProblemCache.read(cacheFile, staleKey));
+	}
+
+	@Test
+	public void corruptCacheIsRebuilt() throws IOException {
+		String dataLocation = copyInstance("TestDataUTT/Test07/", "instance");
+		Problem parsed = new Problem(dataLocation, Main.DATA_FILES);
+		ProblemCache.load(dataLocation, Main.DATA_FILES, false);
+		Path cacheFile = Paths.get(dataLocation, ProblemCache.FILE_NAME);
+		long key = ProblemCache.key(dataLocation, Main.DATA_FILES);
+		byte[] bytes = Files.readAllBytes(cacheFile);
+		byte[][] corruptions = { Arrays.copyOf(bytes, bytes.length / 2), Arrays.copyOf(bytes, bytes.length + 8), Arrays.copyOf(bytes, 10), new byte[bytes.length] };
+		for (byte[] corruption : corruptions) {
+			Files.write(cacheFile, corruption);
+			assertNull(ProblemCache.read(cacheFile, key), "a corrupt cache of " + corruption.length + " bytes was accepted");
+			ProblemLoadTest.assertSameProblem("corrupt cache", parsed, ProblemCache.load(dataLocation, Main.DATA_FILES, false));
+			assertNotNull(ProblemCache.read(cacheFile, key), "the corrupt cache was not rebuilt");
+		}
+	}
+
+	@Test
+	public void rebuildReplacesACacheThatWasRead() throws IOException {
+		String dataLocation = copyInstance("TestDataUTT/Test07/", "instance");
+		Problem parsed = new Problem(dataLocation, Main.DATA_FILES);
+		ProblemCache.load(dataLocation, Main.DATA_FILES, false);
+		ProblemLoadTest.assertSameProblem("hit", parsed, ProblemCache.load(dataLocation, Main.DATA_FILES, false));
+		ProblemLoadTest.assertSameProblem("rebuild", parsed, ProblemCache.load(dataLocation, Main.DATA_FILES, true));
+		assertNotNull(ProblemCache.read(Paths.get(dataLocation, ProblemCache.FILE_NAME), ProblemCache.key(dataLocation, Main.DATA_FILES)));
+	}
+
+	/**
+	 * Copies the data files of an instance to a new directory in the temporary directory.
+	 * @param source - The path where the data files are located.
+	 * @param name - The name of the new directory.
+	 * @return - The path of the copy (ending with a separator, as for the Problem constructor).
+	 * @throws IOException
+	 */
+	private String copyInstance(String source, String name) throws IOException {
+		Path target = Files.createDirectory(this.directory.resolve(name));
+		for (String file : Main.DATA_FILES) {
+			Files.copy(Paths.get(source + file), target.resolve(file));
+		}
+		return target.toString() + "/";
+	}
+}
@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that parsing the data files in parallel builds the same Problem as parsing them one by one,
+ * and that a malformed row is reported at its own line.
+ *
+ */
+public class ProblemLoadTest {
+
+	final static int NO_OF_INSTANCES = 13;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void parallelLoadEqualsSequentialLoad() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int instance = 1; instance <= NO_OF_INSTANCES; instance++) {
+				String dataLocation = String.format("TestDataUTT/Test%02d/", instance);
+				assertSameProblem(dataLocation, new Problem(dataLocation, Main.DATA_FILES), new Problem(dataLocation, Main.DATA_FILES, executor));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void malformedRowIsReportedAtItsLine() throws IOException {
+		// A short or long row in the middle of each file (line 1 is the header)
+		assertMalformedRow("courses.utt", 5, false);
+		assertMalformedRow("courses.utt", 9, true);
+		assertMalformedRow("rooms.utt", 3, false);
+		assertMalformedRow("relation.utt", 4, false);
+		assertMalformedRow("relation.utt", 6, true);
+		assertMalformedRow("unavailability.utt", 2, false);
+		assertMalformedRow("basic.utt", 2, false);
+	}
+
+	/**
+	 * Copies the data files of Test01, removes the last value of a line (or adds a value to it) and checks the error.
+	 * @param file - The data file to change.
+	 * @param line - The line (1-based) to change.
+	 * @param isLong - Whether to add a value instead of removing one.
+	 * @throws IOException
+	 */
+	private void assertMalformedRow(String file, int line, boolean isLong) throws IOException {
+		Path target = Files.createTempDirectory(this.directory, "instance");
+		for (String dataFile : Main.DATA_FILES) {
+			Files.copy(Paths.get("TestDataUTT/Test01/" + dataFile), target.resolve(dataFile));
+		}
+		List<String> lines = Files.readAllLines(target.resolve(file), StandardCharsets.US_ASCII);
+		String row = lines.get(line - 1).trim();
+		lines.set(line - 1, isLong ? row + " 1" : row.substring(0, row.lastIndexOf(' ')));
+		Files.write(target.resolve(file), lines, StandardCharsets.US_ASCII);
+		try {
+			new Problem(target.toString() + "/", Main.DATA_FILES);
+			fail("A " + (isLong ? "long" : "short") + " row at " + file + ":" + line + " was accepted");
+		} catch (ProblemFormatException e) {
+			assertTrue(e.fileName.endsWith(file), e.getMessage());
+			assertEquals(line, e.line, e.getMessage());
+		}
+	}
+
+	static void assertSameProblem(String name, Problem expected, Problem actual) {
+		assertEquals(expected.noOfCourses, actual.noOfCourses, name);
+		assertEquals(expected.noOfRooms, actual.noOfRooms, name);
+		assertEquals(expected.noOfDays, actual.noOfDays, name);
+		assertEquals(expected.periodsPerDay, actual.periodsPerDay, name);
+		assertEquals(expected.noOfCurricula, actual.noOfCurricula, name);
+		assertEquals(expected.noOfConstraints, actual.noOfConstraints, name);
+		assertEquals(expected.noOfLecturers, actual.noOfLecturers, name);
+		assertArrayEquals(expected.courseStudents, actual.courseStudents, name);
+		assertArrayEquals(expected.courseLectures, actual.courseLectures, name);
+		assertArrayEquals(expected.courseMinWorkDays, actual.courseMinWorkDays, name);
+		assertArrayEquals(expected.courseLecturer, actual.courseLecturer, name);
+		assertArrayEquals(expected.courseCurricula, actual.courseCurricula, name);
+		assertArrayEquals(expected.courseUnavailability, actual.courseUnavailability, name);
+		assertArrayEquals(expected.roomCapacities, actual.roomCapacities, name);
+		assertArrayEquals(expected.capacityOverflow, actual.capacityOverflow, name);
+		assertArrayEquals(expected.courseConflicts, actual.courseConflicts, name);
+		assertArrayEquals(expected.conflictOffsets, actual.conflictOffsets, name);
+		assertArrayEquals(expected.conflictCourses, actual.conflictCourses, name);
+		assertEquals(expected.toString(), actual.toString(), name);
+	}
+}
@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that RoomAssignment finds the optimal assignment of the lectures in a timeslot to rooms,
+ * by comparing it to all permutations of the rooms on the instances with the fewest rooms (after scrambling the rooms with RoomSwap).
+ *
+ */
+public class RoomAssignmentTest {
+
+	final static int SCRAMBLING_SWAPS = 50;
+
+	@Test
+	public void assignmentIsOptimal() throws IOException {
+		assertOptimal("TestDataUTT/Test01/", 20, 1);	// 6 rooms
+		assertOptimal("TestDataUTT/Test11/", 20, 2);	// 5 rooms
+	}
+
+	/**
+	 * Scrambles the rooms of the initial solution and compares the assignment of every timeslot to the brute force optimum.
+	 * @param dataLocation - The path where the problem data files are located.
+	 * @param noOfRounds - The no. of times the rooms are scrambled.
+	 * @param seed - The seed of the scrambling.
+	 * @throws IOException
+	 */
+	private static void assertOptimal(String dataLocation, int noOfRounds, long seed) throws IOException {
+		Problem problem = Main.loadProblem(dataLocation, Main.DATA_FILES);
+		Solution solution = Main.createInitialSolution(problem);
+		SplittableRandom random = new SplittableRandom(seed);
+		RoomSwap roomSwap = new RoomSwap(solution, random);
+		RoomAssignment roomAssignment = new RoomAssignment(solution, random);
+		BruteForce bruteForce = new BruteForce(solution);
+		for (int round = 0; round < noOfRounds; round++) {
+			for (int i = 0; i < SCRAMBLING_SWAPS; i++) {
+				roomSwap.randomize();
+				roomSwap.execute();
+			}
+			for (int timeslot = 0; timeslot < problem.noOfTimeslots; timeslot++) {
+				String name = dataLocation + " round " + round + " timeslot " + timeslot;
+				int delta = roomAssignment.assign(timeslot);
+				assertEquals(bruteForce.bestDelta(timeslot), delta, name);
+				if (delta == 0) {
+					assertEquals(0, roomAssignment.noOfLectures, name + ": lectures are moved although the rooms are optimal");
+				} else {
+					assertEquals(delta, roomAssignment.evaluate(), name);
+				}
+			}
+		}
+		int cost = solution.getCost();
+		assertTrue(RoomAssignment.polish(solution) <= cost);
+		CostValidator.validate(solution);
+	}
+
+	/**
+	 * Finds the best assignment of the lectures in a timeslot to rooms by trying all of them.
+	 */
+	private static class BruteForce {
+		private Solution solution;
+		private int noOfLectures;
+		private int[] lectureRooms;		// lecture	-> its current room
+		private int[] assignedRooms;	// lecture	-> the room it is assigned to
+		private boolean[] isUsed;		// room		-> whether a lecture is assigned to it
+		private int[] fromRooms, fromTimeslots, toRooms, toTimeslots;
+		private int bestDelta;
+
+		BruteForce(Solution solution) {
+			int noOfRooms = solution.problem.noOfRooms;
+			this.solution = solution;
+			this.lectureRooms = new int[noOfRooms];
+			this.assignedRooms = new int[noOfRooms];
+			this.isUsed = new boolean[noOfRooms];
+			this.fromRooms = new int[noOfRooms];
+			this.fromTimeslots = new int[noOfRooms];
+			this.toRooms = new int[noOfRooms];
+			this.toTimeslots = new int[noOfRooms];
+		}
+
+		/**
+		 * Finds the best change in cost of reassigning the rooms of a timeslot.
+		 * @param timeslot - The timeslot.
+		 * @return - The lowest change in cost (0 if the current assignment is optimal).
+		 */
+		int bestDelta(int timeslot) {
+			this.noOfLectures = 0;
+			for (int room = 0; room < this.solution.problem.noOfRooms; room++) {
+				if (this.solution.getCourseID(room, timeslot) != Solution.EMPTY) {
+					this.lectureRooms[this.noOfLectures++] = room;
+				}
+			}
+			this.bestDelta = 0;
+			assign(timeslot, 0);
+			return this.bestDelta;
+		}
+
+		private void assign(int timeslot, int lecture) {
+			if (lecture == this.noOfLectures) {
+				int noOfMoved = 0;
+				for (int i = 0; i < this.noOfLectures; i++) {
+					if (this.assignedRooms[i] != this.lectureRooms[i]) {
+						this.fromRooms[noOfMoved] = this.lectureRooms[i];
+						this.fromTimeslots[noOfMoved] = timeslot;
+						this.toRooms[noOfMoved] = this.assignedRooms[i];
+						this.toTimeslots[noOfMoved] = timeslot;
+						noOfMoved++;
+					}
+				}
+				if (noOfMoved > 0) {
+					int delta = this.solution.deltaRelocateLectures(noOfMoved, this.fromRooms, this.fromTimeslots, this.toRooms, this.toTimeslots);
+					this.bestDelta = Math.min(this.bestDelta, delta);
+				}
+				return;
+			}
+			for (int room = 0; room < this.isUsed.length; room++) {
+				if (!this.isUsed[room]) {
+					this.isUsed[room] = true;
+					this.assignedRooms[lecture] = room;
+					assign(timeslot, lecture + 1);
+					this.isUsed[room] = false;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the hot path of the search does not allocate: after warm-up, 1M calls of SimpleSearch.iterate()
+ * (including its improvements) may allocate next to nothing, measured with the allocation counter of the thread.
+ *
+ */
+public class SimpleSearchAllocationTest {
+
+	final static int ITERATIONS = 1000000;
+	// Bytes allowed per 1M iterations: measured 0, while the improvement messages alone (if built without output) are over 1.5 KB
+	final static long ALLOCATION_BUDGET = 256;
+
+	@Test
+	public void iterateIsAllocationFree() throws IOException {
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		Problem problem = Main.loadProblem("TestDataUTT/Test07/", Main.DATA_FILES);
+		SimpleSearch search = new SimpleSearch(Main.createInitialSolution(problem), false, new SplittableRandom(1));
+		for (int i = 0; i < ITERATIONS; i++) { // warm-up (JIT compilation and the first improvements)
+			search.iterate();
+		}
+		long threadID = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadID);
+		for (int i = 0; i < ITERATIONS; i++) {
+			search.iterate();
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadID) - before;
+		assertTrue(allocated <= ALLOCATION_BUDGET, allocated + " bytes allocated by " + ITERATIONS + " iterations (budget " + ALLOCATION_BUDGET + ")");
+	}
+}